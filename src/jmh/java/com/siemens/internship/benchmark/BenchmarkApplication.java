@@ -0,0 +1,64 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.InternshipApplication;
+import com.siemens.internship.Item;
+import com.siemens.internship.ItemRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// starts the real application (without the web server) against its own embedded H2 database,
+// so the benchmarks measure the actual services, repositories and Hibernate settings
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        List<String> all = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN"));
+        all.addAll(List.of(properties));
+        // as command line arguments, since default properties would lose against application.properties
+        // (which made every benchmark share jdbc:h2:mem:testdb and ignore its cache and concurrency parameters)
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(InternshipApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(all.stream().map(property -> "--" + property).toArray(String[]::new));
+        // a benchmark whose parameters didn't reach the application measures something else; fail instead
+        for (String property : all) {
+            int separator = property.indexOf('=');
+            String name = property.substring(0, separator);
+            String expected = property.substring(separator + 1);
+            String actual = context.getEnvironment().getProperty(name);
+            if (!expected.equals(actual)) {
+                context.close();
+                throw new IllegalStateException("Benchmark property " + name + " is " + actual + ", expected " + expected);
+            }
+        }
+        return context;
+    }
+
+    // inserts "count" items in batches and returns their ids
+    static List<Long> seed(ConfigurableApplicationContext context, int count) {
+        ItemRepository repository = context.getBean(ItemRepository.class);
+        List<Long> ids = new ArrayList<>(count);
+        List<Item> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batch.add(item(i));
+            if (batch.size() == 1000 || i == count - 1) {
+                repository.saveAll(batch).forEach(saved -> ids.add(saved.getId()));
+                batch.clear();
+            }
+        }
+        return ids;
+    }
+
+    static Item item(int i) {
+        return new Item(null, "Item " + i, "Description of item " + i, "NEW", "item" + i + "@example.com");
+    }
+}
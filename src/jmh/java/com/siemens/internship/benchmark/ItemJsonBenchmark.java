@@ -0,0 +1,99 @@
+package com.siemens.internship.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.siemens.internship.Item;
+import com.siemens.internship.ItemCodec;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// JSON serialization and deserialization of one Item, with an ObjectMapper configured like Spring Boot's,
+// against ItemCodec; readAndValidate* is what POST/PUT /api/items do with a request body, before (ObjectMapper
+// and Bean Validation) and after (ItemJsonConverter, then ItemController.validate); run with -prof gc to
+// compare the bytes allocated per operation
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemJsonBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Item item;
+    private byte[] json;
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        item = new Item(42L, "Item 42", "Description of item 42", "NEW", "item42@example.com");
+        item.setVersion(3L);
+        item.setLastModified(Instant.parse("2025-01-01T10:00:00Z"));
+        json = objectMapper.writeValueAsBytes(item);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(item);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Item deserialize() throws Exception {
+        return objectMapper.readValue(json, Item.class);
+    }
+
+    @Benchmark
+    public byte[] serializeCodec() throws Exception {
+        ByteArrayBuilder out = new ByteArrayBuilder(256);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            ItemCodec.write(generator, item);
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Item deserializeCodec() throws Exception {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            return ItemCodec.read(parser);
+        }
+    }
+
+    @Benchmark
+    public Object readAndValidate() throws Exception {
+        Item read = objectMapper.readValue(json, Item.class);
+        Set<ConstraintViolation<Item>> violations = validator.validate(read);
+        return violations.isEmpty() ? read : violations;
+    }
+
+    @Benchmark
+    public Object readAndValidateCodec() throws Exception {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            Item read = ItemCodec.read(parser);
+            Map<String, String> errors = ItemCodec.validate(read);
+            return errors.isEmpty() ? read : errors;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.Item;
+import com.siemens.internship.ItemService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// one full processItemsAsync run over the table, at several numbers of chunks in flight, with the chunks on the
+// platform thread pool or on virtual threads (limited to the connection pool size); virtualThreads=true needs a
+// Java 21+ JVM, on older ones it measures the pool again (see ItemProcessingExecutor.isVirtualThreads);
+// writeBehind=true lets the chunks hand their items to ItemWriteBehindBuffer instead of committing them
+// every invocation starts from a table where all items are NEW again, otherwise Hibernate would
+// see no change and skip the updates
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ItemProcessingBenchmark {
+
+    @Param({"10000", "100000"})
+    public int tableSize;
+
+    @Param({"1", "4", "8", "32"})
+    public int maxInFlightChunks;
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"false", "true"})
+    public boolean writeBehind;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "items.processing.max-in-flight-chunks=" + maxInFlightChunks,
+                "items.processing.executor.core-pool-size=" + maxInFlightChunks,
+                "items.processing.executor.max-pool-size=" + maxInFlightChunks,
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "items.write-behind.enabled=" + writeBehind);
+        itemService = context.getBean(ItemService.class);
+        BenchmarkApplication.seed(context, tableSize);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetStatuses() {
+        itemService.transitionStatus(null, "NEW", null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Item> processItemsAsync() {
+        return itemService.processItemsAsync().join();
+    }
+}
@@ -0,0 +1,89 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.Item;
+import com.siemens.internship.ItemPage;
+import com.siemens.internship.ItemService;
+import com.siemens.internship.ItemView;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// lookups, writes and full listing through ItemService at several table sizes,
+// with and without the item cache in front of findById
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemServiceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int tableSize;
+
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private List<Long> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("items.cache.enabled=" + cacheEnabled);
+        itemService = context.getBean(ItemService.class);
+        ids = BenchmarkApplication.seed(context, tableSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private Long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    @Benchmark
+    public Optional<Item> findById() {
+        return itemService.findById(randomId());
+    }
+
+    // read-modify-write of an existing item, the way a client updates it
+    @Benchmark
+    public Item save() {
+        Item item = itemService.findById(randomId()).orElseThrow();
+        item.setDescription("Updated " + System.nanoTime());
+        return itemService.save(item);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public List<Item> findAll() {
+        return itemService.findAll();
+    }
+
+    // the same listing as projections (GET /api/items), and with only two columns (GET /api/items?fields=id,status)
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public List<ItemView> findAllViews() {
+        return itemService.findAllViews();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public ItemPage<Map<String, Object>> findIdAndStatus() {
+        return itemService.findFields(List.of("id", "status"), null, null);
+    }
+}
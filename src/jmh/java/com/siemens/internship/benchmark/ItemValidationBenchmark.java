@@ -0,0 +1,62 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.Item;
+import com.siemens.internship.ItemCodec;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Bean Validation of Item's @NotBlank/@Pattern constraints, for a valid item and for one that breaks all of them,
+// against the same checks in ItemCodec.validate
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private Item validItem;
+    private Item invalidItem;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validItem = new Item(null, "Item", "Description", "NEW", "item@example.com");
+        invalidItem = new Item(null, "", " ", "", "not-an-email");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Item>> validateValid() {
+        return validator.validate(validItem);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Item>> validateInvalid() {
+        return validator.validate(invalidItem);
+    }
+
+    @Benchmark
+    public Map<String, String> validateValidCodec() {
+        return ItemCodec.validate(validItem);
+    }
+
+    @Benchmark
+    public Map<String, String> validateInvalidCodec() {
+        return ItemCodec.validate(invalidItem);
+    }
+}
@@ -0,0 +1,144 @@
+package com.siemens.internship;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// decides how many chunks may be processed at the same time, across all runs of this instance
+// the limit follows AIMD: every chunk that completes while the database looks healthy raises it by 1/limit
+// (about +1 per "limit" chunks), and a failed chunk or a sign of overload multiplies it by backoffRatio
+// "overload" is measured, not configured: for the per-item latency of chunks and for the latency of each kind
+// of interactive repository call (findById/save/update/delete from ItemService, each with its own normal) the
+// limiter keeps a smoothed value and a baseline (the lowest latency seen, slowly drifting up); when any smoothed
+// latency is more than latencyTolerance times its baseline, the batch side backs off, so busy API traffic slows
+// processing down instead of the other way around
+// a latency not measured within sampleMaxAge is no signal either way: once the requests stop, their last (slow)
+// samples don't keep the limit down, and the next request starts the smoothed value over
+// the current limit and the number of chunks in flight are published as "items.processing.concurrency.*"
+@Component
+public class AdaptiveConcurrencyLimiter implements MeterBinder {
+
+    // weight of a new sample in the smoothed latency
+    private static final double SMOOTHING = 0.2;
+    // how fast the baseline follows latencies above it, so a permanently slower database (e.g. a bigger
+    // table) eventually becomes the new normal instead of holding the limit down forever
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final long sampleMaxAgeNanos;
+    private final LongSupplier nanoClock;
+
+    // limit, inFlight and the trackers are guarded by "this"
+    private final LatencyTracker chunkLatency = new LatencyTracker();
+    private final Map<String, LatencyTracker> requestLatency = new HashMap<>();
+    private double limit;
+    private int inFlight;
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(ItemProcessingProperties processingProperties) {
+        this(processingProperties, System::nanoTime);
+    }
+
+    // with the clock the age of the samples is measured on, so tests don't have to wait
+    AdaptiveConcurrencyLimiter(ItemProcessingProperties processingProperties, LongSupplier nanoClock) {
+        ItemProcessingProperties.Limiter limiter = processingProperties.getLimiter();
+        this.enabled = limiter.isEnabled();
+        this.maxLimit = processingProperties.getMaxInFlightChunks();
+        this.minLimit = Math.min(limiter.getMinLimit(), maxLimit);
+        this.backoffRatio = limiter.getBackoffRatio();
+        this.latencyTolerance = limiter.getLatencyTolerance();
+        this.sampleMaxAgeNanos = limiter.getSampleMaxAge().toNanos();
+        this.nanoClock = nanoClock;
+        this.limit = maxLimit;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("items.processing.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit).register(registry);
+        Gauge.builder("items.processing.concurrency.in_flight", this, AdaptiveConcurrencyLimiter::getInFlight).register(registry);
+    }
+
+    // waits until one more chunk fits under the current limit
+    public synchronized void acquire() throws InterruptedException {
+        while (inFlight >= getLimit()) {
+            wait();
+        }
+        inFlight++;
+    }
+
+    public synchronized void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    // feedback of one processed chunk: how long it took and whether it was saved
+    public synchronized void onChunk(long nanos, int items, boolean success) {
+        if (!enabled) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        boolean overloaded = !success;
+        if (success && items > 0) {
+            overloaded = chunkLatency.record((double) nanos / items, now);
+        }
+        for (LatencyTracker tracker : requestLatency.values()) {
+            overloaded |= tracker.isAboveTolerance(now);
+        }
+
+        if (overloaded) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (inFlight + 1 >= getLimit()) {
+            // only grow while the limit is what actually holds processing back
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+        notifyAll();
+    }
+
+    // latency of one interactive repository call of the given kind; acted on with the next chunk feedback
+    public synchronized void onRequest(String operation, long nanos) {
+        if (enabled) {
+            requestLatency.computeIfAbsent(operation, key -> new LatencyTracker()).record(nanos, nanoClock.getAsLong());
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private class LatencyTracker {
+        private double smoothed = -1;
+        private double baseline = Double.MAX_VALUE;
+        private long sampledAt;
+
+        // returns whether the smoothed latency is above the tolerated multiple of the baseline
+        boolean record(double sample, long now) {
+            // after a pause the smoothed value describes a load that is gone, so the sample replaces it
+            smoothed = smoothed < 0 || isExpired(now) ? sample : smoothed + (sample - smoothed) * SMOOTHING;
+            baseline = sample < baseline ? sample : baseline + (sample - baseline) * BASELINE_DRIFT;
+            sampledAt = now;
+            return isAboveTolerance(now);
+        }
+
+        boolean isAboveTolerance(long now) {
+            return smoothed >= 0 && !isExpired(now) && smoothed > baseline * latencyTolerance;
+        }
+
+        private boolean isExpired(long now) {
+            return now - sampledAt > sampleMaxAgeNanos;
+        }
+    }
+}
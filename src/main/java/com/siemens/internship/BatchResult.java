@@ -0,0 +1,22 @@
+package com.siemens.internship;
+
+import java.util.List;
+import java.util.Map;
+
+// response of POST/PUT /api/items/batch: one entry per element of the request, in the same order
+// "status" is the HTTP status the element would have gotten on its own (201/200, 400, 404 or 500)
+// and "errors" holds the same field -> message map as the single item endpoints
+public record BatchResult(int succeeded, int failed, List<ItemResult> results) {
+
+    public record ItemResult(int index, Long id, int status, Map<String, String> errors) {
+
+        public boolean isSuccess() {
+            return status < 300;
+        }
+    }
+
+    public static BatchResult of(List<ItemResult> results) {
+        int succeeded = (int) results.stream().filter(ItemResult::isSuccess).count();
+        return new BatchResult(succeeded, results.size() - succeeded, results);
+    }
+}
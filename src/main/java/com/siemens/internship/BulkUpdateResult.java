@@ -0,0 +1,6 @@
+package com.siemens.internship;
+
+// outcome of a set-based status transition (see ItemService.transitionStatus)
+// "partitions" is the number of UPDATE statements that were executed
+public record BulkUpdateResult(String sourceStatus, String targetStatus, long affected, int partitions, long durationMillis) {
+}
@@ -0,0 +1,20 @@
+package com.siemens.internship;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+// Accept: application/cbor; the same objects as the JSON responses, in a binary encoding with no quoting
+// or escaping and numbers written as binary; Spring MVC would register a CBOR converter by itself once the
+// format is on the classpath, but with a plain ObjectMapper, so this one is built from Spring Boot's builder
+// to get the same settings as the JSON (e.g. ISO-8601 timestamps); as a bean it takes the default's place,
+// after the JSON converters, so JSON stays what clients get unless they ask otherwise
+// it also reads request bodies, without validating them; createItem and updateItem do that for every format
+@Component
+public class CborConverter extends MappingJackson2CborHttpMessageConverter {
+
+    public CborConverter(Jackson2ObjectMapperBuilder builder) {
+        super(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -0,0 +1,81 @@
+package com.siemens.internship;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// reads UTF-8 lines from a channel through one fixed buffer, and knows the byte offset of the next line, which
+// is what an import checkpoint stores; a BufferedReader decodes ahead and can't say where in the bytes it is
+// a line ends with \n or \r\n; the line break is not part of the returned line
+final class ChannelLineReader {
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private byte[] line = new byte[256];
+    private long position;
+    private boolean endOfInput;
+
+    ChannelLineReader(ReadableByteChannel channel, int bufferSize, long position) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.buffer.flip();
+        this.position = position;
+    }
+
+    // offset of the first byte that hasn't been returned yet, counted from where the channel started
+    long position() {
+        return position;
+    }
+
+    // null at the end of the input
+    String readLine() throws IOException {
+        int length = 0;
+        while (true) {
+            if (!buffer.hasRemaining() && !fill()) {
+                return length > 0 ? decode(length) : null;
+            }
+            byte[] bytes = buffer.array();
+            int start = buffer.position();
+            int end = start;
+            while (end < buffer.limit() && bytes[end] != '\n') {
+                end++;
+            }
+            int count = end - start;
+            if (length + count > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, length + count));
+            }
+            System.arraycopy(bytes, start, line, length, count);
+            length += count;
+            if (end < buffer.limit()) {
+                buffer.position(end + 1);
+                position += count + 1;
+                return decode(length);
+            }
+            buffer.position(end);
+            position += count;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        endOfInput = read < 0;
+        return !endOfInput;
+    }
+
+    private String decode(int length) {
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+}
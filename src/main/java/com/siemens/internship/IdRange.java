@@ -0,0 +1,9 @@
+package com.siemens.internship;
+
+// inclusive range of item ids; "from" and "to" are null when the table is empty
+public record IdRange(Long from, Long to) {
+
+    public boolean isEmpty() {
+        return from == null || to == null;
+    }
+}
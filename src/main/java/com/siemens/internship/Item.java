@@ -8,14 +8,39 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.Instant;
+
+// status and email are indexed because they are what items are filtered by (see ItemRepository.findBy...);
+// without the indexes every filtered query would scan the whole table
+// (lastModified, id) is the order incremental runs page in, see ItemRepository.findChangedAfter
+// every write that goes through the entity is also applied to the search index, see ItemSearchListener
 @Entity
+@EntityListeners(ItemSearchListener.class)
+@Table(indexes = {
+        @Index(name = "idx_item_status", columnList = "status"),
+        @Index(name = "idx_item_email", columnList = "email"),
+        @Index(name = "idx_item_last_modified_id", columnList = "lastModified, id")
+})
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 public class Item {
+    // the validation messages are part of the API (they are returned to clients as field errors), and
+    // ItemCodec checks the same rules without Bean Validation, so both use these constants
+    public static final String NAME_BLANK = "Name cannot be blank";
+    public static final String DESCRIPTION_BLANK = "Description cannot be blank";
+    public static final String STATUS_BLANK = "Status cannot be blank";
+    public static final String EMAIL_BLANK = "Email cannot be blank";
+    public static final String EMAIL_INVALID = "Email must be a valid";
+    public static final String EMAIL_PATTERN = "^[A-Za-z0-9][A-Za-z0-9+_.-]*@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$";
+
+    // ids come from a database sequence through Hibernate's pooled optimizer: one sequence call reserves
+    // a block of 50 ids, so inserting many items doesn't cost a round trip per id, and (unlike IDENTITY)
+    // the inserts can still be sent as JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq")
+    @SequenceGenerator(name = "item_seq", sequenceName = "item_seq", allocationSize = 50)
     private Long id;
 
 
@@ -23,20 +48,43 @@ public class Item {
     // NotBlank checks if the field is not null and not empty
     // in case it is, the message will be returned to the user
 
-    @NotBlank(message = "Name cannot be blank")
+    @NotBlank(message = NAME_BLANK)
     private String name;
 
-    @NotBlank(message = "Description cannot be blank")
+    @NotBlank(message = DESCRIPTION_BLANK)
     private String description;
 
-    @NotBlank(message = "Status cannot be blank")
+    @NotBlank(message = STATUS_BLANK)
     private String status;
 
     // the regex checks that the email starts with an alphanumeric character, but allows +_.- in rest,
     // has an '@', a domain with at least one ".", and ends with a valid top-level domain with at
     // least 2 characters
 
-    @NotBlank(message = "Email cannot be blank")
-    @Pattern(regexp = "^[A-Za-z0-9][A-Za-z0-9+_.-]*@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$", message = "Email must be a valid")
+    @NotBlank(message = EMAIL_BLANK)
+    @Pattern(regexp = EMAIL_PATTERN, message = EMAIL_INVALID)
     private String email;
-}
\ No newline at end of file
+
+    // optimistic locking: incremented on every update, exposed to clients as the ETag of the item
+    // so concurrent writers can send it back in If-Match and fail fast instead of overwriting each other
+    @Version
+    private Long version;
+
+    // when the item was last created or changed by a client (see ItemService); incremental processing only
+    // looks at items changed after its watermark, so processing's own status transitions deliberately
+    // don't touch it, otherwise every run would make all the items it processed "changed" again
+    private Instant lastModified;
+
+    // the business fields only; the version and the modification time are managed by the application
+    public Item(Long id, String name, String description, String status, String email) {
+        this(id, name, description, status, email, null, null);
+    }
+
+    // fallback for inserts that don't go through ItemService
+    @PrePersist
+    void initLastModified() {
+        if (lastModified == null) {
+            lastModified = Instant.now();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.siemens.internship;
+
+import java.time.Instant;
+import java.util.Map;
+
+// response of GET /api/items/aggregates: items per status, their total, and the processing backlog (every
+// item that is not PROCESSED yet)
+// "stale" is true when a write the counters couldn't follow happened since "reconciledAt"; the counters are
+// then corrected against the database within a second or so
+public record ItemAggregates(Map<String, Long> statuses, long total, long backlog, Instant reconciledAt, boolean stale) {
+}
@@ -0,0 +1,26 @@
+package com.siemens.internship;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+// settings of the in-memory status counters (see ItemStatusAggregates), bound from "items.aggregates.*"
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "items.aggregates")
+public class ItemAggregatesProperties {
+
+    // the counters are recounted from the database at least this often, even if they look right, so
+    // anything they missed (e.g. a write from another instance) is corrected eventually
+    @NotNull
+    private Duration reconcileInterval = Duration.ofMinutes(1);
+
+    // how often to check whether the counters were marked stale, in which case they are recounted right away
+    @NotNull
+    private Duration staleCheckInterval = Duration.ofSeconds(1);
+}
@@ -0,0 +1,231 @@
+package com.siemens.internship;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// read-through cache for items looked up by id (getItemById, updateItem and deleteItem all start with one)
+// bounded by size (least recently used entries are evicted) and by age (entries expire after the TTL)
+// the cache only holds copies, so nobody can change a cached item by modifying what they got back
+// hits, misses, evictions and size are also published as "items.cache.*" metrics
+@Component
+public class ItemCache implements MeterBinder {
+
+    // every segment is an LRU of its own, so a lookup only locks the segment its id falls into; large caches
+    // get up to MAX_SEGMENTS of them, small ones fewer, so that each still holds enough entries for its
+    // eviction order to stay close to the LRU order of the whole cache
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Segment[] segments;
+
+    // every load gets its own token (see loadToken)
+    private final AtomicLong loadTokens = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Autowired
+    public ItemCache(ItemCacheProperties cacheProperties) {
+        this.enabled = cacheProperties.isEnabled();
+        this.maxSize = cacheProperties.getMaxSize();
+        this.ttlNanos = cacheProperties.getTtl().toNanos();
+        int count = Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENTS, maxSize / MIN_SEGMENT_SIZE)));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            // the first maxSize % count segments take one more, so together they hold exactly maxSize
+            segments[i] = new Segment(maxSize / count + (i < maxSize % count ? 1 : 0));
+        }
+    }
+
+    private record Entry(Item item, long expiresAt) {
+    }
+
+    // access-ordered LinkedHashMap = LRU; all access to a segment is synchronized on it
+    // "loading" has the token of the load in progress for an id; invalidating the id removes it, so a value
+    // loaded from the database is only stored if that id was not invalidated while it was being loaded,
+    // otherwise a slow read could put back a value that was just changed; other ids don't matter
+    private final class Segment {
+        private final LinkedHashMap<Long, Entry> entries;
+        private final Map<Long, Long> loading = new HashMap<>();
+
+        private Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private synchronized void invalidate(Long id) {
+            entries.remove(id);
+            loading.remove(id);
+        }
+
+        private synchronized void clear() {
+            entries.clear();
+            loading.clear();
+        }
+
+        private synchronized int size() {
+            return entries.size();
+        }
+    }
+
+    private Segment segmentFor(Long id) {
+        int hash = id.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("items.cache.hits", hits, LongAdder::sum).register(registry);
+        FunctionCounter.builder("items.cache.misses", misses, LongAdder::sum).register(registry);
+        FunctionCounter.builder("items.cache.evictions", evictions, LongAdder::sum).register(registry);
+        FunctionCounter.builder("items.cache.expirations", expirations, LongAdder::sum).register(registry);
+        Gauge.builder("items.cache.size", this, cache -> cache.getStats().size()).register(registry);
+    }
+
+    // returns the cached item, or null on a miss (including an expired entry)
+    public Item get(Long id) {
+        if (!enabled) {
+            return null;
+        }
+        Segment segment = segmentFor(id);
+        synchronized (segment) {
+            Entry entry = segment.entries.get(id);
+            if (entry != null && entry.expiresAt() - System.nanoTime() > 0) {
+                hits.increment();
+                return copy(entry.item());
+            }
+            if (entry != null) {
+                segment.entries.remove(id);
+                expirations.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    // the value to pass to put() after loading the item with this id from the database; a newer load of the
+    // same id takes over, so only the last one started is stored
+    public long loadToken(Long id) {
+        long token = loadTokens.incrementAndGet();
+        if (enabled) {
+            Segment segment = segmentFor(id);
+            synchronized (segment) {
+                segment.loading.put(id, token);
+            }
+        }
+        return token;
+    }
+
+    public void put(Item item, long loadToken) {
+        if (!enabled || item.getId() == null) {
+            return;
+        }
+        Segment segment = segmentFor(item.getId());
+        synchronized (segment) {
+            if (segment.loading.remove(item.getId(), loadToken)) {
+                segment.entries.put(item.getId(), new Entry(copy(item), System.nanoTime() + ttlNanos));
+            }
+        }
+    }
+
+    // read-through lookup: serves the item from the cache, or loads it with "loader" and caches it
+    public Optional<Item> getOrLoad(Long id, Function<Long, Optional<Item>> loader) {
+        Item cached = get(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long token = loadToken(id);
+        Optional<Item> loaded;
+        try {
+            loaded = loader.apply(id);
+        } catch (RuntimeException e) {
+            forgetLoad(id, token);
+            throw e;
+        }
+        if (loaded.isPresent()) {
+            put(loaded.get(), token);
+        } else {
+            forgetLoad(id, token);
+        }
+        return loaded;
+    }
+
+    // a load with nothing to store, so its token doesn't stay behind
+    private void forgetLoad(Long id, long token) {
+        Segment segment = segmentFor(id);
+        synchronized (segment) {
+            segment.loading.remove(id, token);
+        }
+    }
+
+    public void evict(Long id) {
+        invalidations.increment();
+        segmentFor(id).invalidate(id);
+    }
+
+    public void evictAll(Iterable<Long> ids) {
+        invalidations.increment();
+        ids.forEach(id -> segmentFor(id).invalidate(id));
+    }
+
+    public void clear() {
+        invalidations.increment();
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public CacheStats getStats() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        return new CacheStats(enabled, size, maxSize, hitCount, missCount,
+                requests == 0 ? 0.0 : (double) hitCount / requests,
+                evictions.sum(), expirations.sum(), invalidations.sum());
+    }
+
+    private static Item copy(Item item) {
+        return new Item(item.getId(), item.getName(), item.getDescription(), item.getStatus(), item.getEmail(), item.getVersion(), item.getLastModified());
+    }
+
+    public record CacheStats(boolean enabled,
+                             int size,
+                             int maxSize,
+                             long hits,
+                             long misses,
+                             double hitRatio,
+                             long evictions,
+                             long expirations,
+                             long invalidations) {
+    }
+}
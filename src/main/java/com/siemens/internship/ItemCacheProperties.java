@@ -0,0 +1,29 @@
+package com.siemens.internship;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+// settings of the in-process item cache (see ItemCache), bound from "items.cache.*"
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "items.cache")
+public class ItemCacheProperties {
+
+    // when disabled, every lookup goes straight to the database
+    private boolean enabled = true;
+
+    // maximum number of cached items; the least recently used one is evicted first
+    @Min(1)
+    private int maxSize = 10_000;
+
+    // how long a cached item is served before it is read from the database again
+    @NotNull
+    private Duration ttl = Duration.ofMinutes(5);
+}
@@ -0,0 +1,8 @@
+package com.siemens.internship;
+
+import java.time.Instant;
+
+// id and lastModified of a changed item: one row of an incremental run's page, and the keyset position the
+// next page continues after
+public record ItemChange(Long id, Instant lastModified) {
+}
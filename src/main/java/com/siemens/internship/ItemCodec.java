@@ -0,0 +1,240 @@
+package com.siemens.internship;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// reads and writes a single Item straight from/to the JSON tokens, and checks the same rules as the Bean
+// Validation annotations on Item with plain character loops
+// the generic path (ObjectMapper + Validator) resolves the bean properties through reflection, builds a
+// ConstraintViolation with an interpolated message per error and runs the email regex on every request;
+// here a valid item costs the Item itself and its strings, and the error map is only created when needed
+// the JSON is the same as Jackson's: unknown properties are ignored, scalars are coerced to strings and
+// numbers like Jackson does, and the item is written with the same property order and null handling
+public final class ItemCodec {
+
+    private ItemCodec() {
+    }
+
+    // the parser must be positioned before the START_OBJECT (fresh parser) or on it
+    public static Item read(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken() != null ? parser.currentToken() : parser.nextToken();
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object for an item but got " + token);
+        }
+        Item item = new Item();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> item.setId(readLong(parser, field));
+                case "name" -> item.setName(readString(parser, field));
+                case "description" -> item.setDescription(readString(parser, field));
+                case "status" -> item.setStatus(readString(parser, field));
+                case "email" -> item.setEmail(readString(parser, field));
+                case "version" -> item.setVersion(readLong(parser, field));
+                case "lastModified" -> item.setLastModified(readInstant(parser, field));
+                // like FAIL_ON_UNKNOWN_PROPERTIES=false in Spring Boot's ObjectMapper
+                default -> parser.skipChildren();
+            }
+        }
+        if (parser.currentToken() != JsonToken.END_OBJECT) {
+            throw new JsonParseException(parser, "Unexpected end of the item object");
+        }
+        return item;
+    }
+
+    public static void write(JsonGenerator generator, Item item) throws IOException {
+        write(generator, item.getId(), item.getName(), item.getDescription(), item.getStatus(), item.getEmail(),
+                item.getVersion(), item.getLastModified());
+    }
+
+    // the same JSON for a projection, e.g. while exporting the table
+    public static void write(JsonGenerator generator, ItemView item) throws IOException {
+        write(generator, item.id(), item.name(), item.description(), item.status(), item.email(), item.version(),
+                item.lastModified());
+    }
+
+    private static void write(JsonGenerator generator, Long id, String name, String description, String status,
+                              String email, Long version, Instant lastModified) throws IOException {
+        generator.writeStartObject();
+        writeLong(generator, "id", id);
+        writeString(generator, "name", name);
+        writeString(generator, "description", description);
+        writeString(generator, "status", status);
+        writeString(generator, "email", email);
+        writeLong(generator, "version", version);
+        // ISO-8601, like the JavaTimeModule with WRITE_DATES_AS_TIMESTAMPS disabled (Spring Boot's default)
+        writeString(generator, "lastModified", lastModified != null ? lastModified.toString() : null);
+        generator.writeEndObject();
+    }
+
+    // field -> message for every broken rule, with the messages of the annotations on Item; an empty
+    // (shared) map if the item is valid
+    // a blank email only reports "cannot be blank": the regex also rejects it, but Bean Validation returned
+    // both violations in no particular order, so which of the two messages ended up in the map was random
+    public static Map<String, String> validate(Item item) {
+        Map<String, String> errors = null;
+        if (isBlank(item.getName())) {
+            errors = put(errors, "name", Item.NAME_BLANK);
+        }
+        if (isBlank(item.getDescription())) {
+            errors = put(errors, "description", Item.DESCRIPTION_BLANK);
+        }
+        if (isBlank(item.getStatus())) {
+            errors = put(errors, "status", Item.STATUS_BLANK);
+        }
+        if (isBlank(item.getEmail())) {
+            errors = put(errors, "email", Item.EMAIL_BLANK);
+        } else if (!isValidEmail(item.getEmail())) {
+            errors = put(errors, "email", Item.EMAIL_INVALID);
+        }
+        return errors != null ? errors : Map.of();
+    }
+
+    // same as @NotBlank: null, or nothing left after String.trim()
+    static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // same result as a full match of Item.EMAIL_PATTERN, without the regex engine:
+    // local part = an alphanumeric character followed by [A-Za-z0-9+_.-]*, then the only '@',
+    // domain = [A-Za-z0-9.-]+ '.' [A-Za-z]{2,}; since the top-level domain can't contain a '.', the regex
+    // can only match if the last '.' of the domain starts it, so that's the only split to check
+    static boolean isValidEmail(String email) {
+        int at = email.indexOf('@');
+        if (at < 1 || !isAlphanumeric(email.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < at; i++) {
+            char c = email.charAt(i);
+            if (!isAlphanumeric(c) && c != '+' && c != '_' && c != '.' && c != '-') {
+                return false;
+            }
+        }
+        int lastDot = email.lastIndexOf('.');
+        // at least one domain character before the dot and two letters after it
+        if (lastDot < at + 2 || email.length() - lastDot - 1 < 2) {
+            return false;
+        }
+        for (int i = at + 1; i < lastDot; i++) {
+            char c = email.charAt(i);
+            if (!isAlphanumeric(c) && c != '.' && c != '-') {
+                return false;
+            }
+        }
+        for (int i = lastDot + 1; i < email.length(); i++) {
+            if (!isLetter(email.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, String> put(Map<String, String> errors, String field, String message) {
+        if (errors == null) {
+            errors = new LinkedHashMap<>(8);
+        }
+        errors.put(field, message);
+        return errors;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAlphanumeric(char c) {
+        return isLetter(c) || (c >= '0' && c <= '9');
+    }
+
+    private static String readString(JsonParser parser, String field) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isScalarValue()) {
+            return parser.getText();
+        }
+        throw new JsonParseException(parser, "Expected a string for \"" + field + "\" but got " + token);
+    }
+
+    private static Long readLong(JsonParser parser, String field) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String text = parser.getText().trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            try {
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                throw new JsonParseException(parser, "\"" + field + "\" is not a number: " + text, e);
+            }
+        }
+        throw new JsonParseException(parser, "Expected a number for \"" + field + "\" but got " + token);
+    }
+
+    // ISO-8601 text or epoch seconds (with a fraction for the nanoseconds), the forms Jackson's InstantDeserializer
+    // accepts by default
+    private static Instant readInstant(JsonParser parser, String field) throws IOException {
+        JsonToken token = parser.currentToken();
+        try {
+            if (token == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            if (token == JsonToken.VALUE_NUMBER_INT) {
+                return Instant.ofEpochSecond(parser.getLongValue());
+            }
+            if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+                BigDecimal seconds = parser.getDecimalValue();
+                long whole = seconds.longValue();
+                return Instant.ofEpochSecond(whole, seconds.subtract(BigDecimal.valueOf(whole)).movePointRight(9).longValue());
+            }
+            if (token == JsonToken.VALUE_STRING) {
+                String text = parser.getText().trim();
+                return text.isEmpty() ? null : Instant.parse(text);
+            }
+        } catch (DateTimeException e) {
+            throw new JsonParseException(parser, "\"" + field + "\" is not an ISO-8601 instant", e);
+        }
+        throw new JsonParseException(parser, "Expected a timestamp for \"" + field + "\" but got " + token);
+    }
+
+    private static void writeString(JsonGenerator generator, String field, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(field, value);
+        } else {
+            generator.writeNullField(field);
+        }
+    }
+
+    private static void writeLong(JsonGenerator generator, String field, Long value) throws IOException {
+        if (value != null) {
+            generator.writeNumberField(field, value);
+        } else {
+            generator.writeNullField(field);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.siemens.internship;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// columnar form of a list of items, for GET /api/items with Accept: application/vnd.items.columnar+json
+// instead of one object per item (every property name repeated per item), there is one array per field,
+// and the status column holds indexes into "statuses", so each distinct status string is written once
+// e.g. {"count":2,"statuses":["NEW"],"columns":{"id":[1,2],"status":[0,0]},"nextCursor":null}
+public record ItemColumns(int count, List<String> statuses, Map<String, List<Object>> columns, Long nextCursor) {
+
+    public static final String MEDIA_TYPE = "application/vnd.items.columnar+json";
+
+    // rows are the field maps of ItemService.findFields, each with the given fields
+    public static ItemColumns of(List<String> fields, List<Map<String, Object>> rows, Long nextCursor) {
+        Map<String, List<Object>> columns = new LinkedHashMap<>();
+        for (String field : fields) {
+            columns.put(field, new ArrayList<>(rows.size()));
+        }
+        List<String> statuses = new ArrayList<>();
+        Map<String, Integer> statusIndexes = new HashMap<>();
+        for (Map<String, Object> row : rows) {
+            for (String field : fields) {
+                Object value = row.get(field);
+                if (field.equals("status") && value != null) {
+                    value = statusIndexes.computeIfAbsent((String) value, status -> {
+                        statuses.add(status);
+                        return statuses.size() - 1;
+                    });
+                }
+                columns.get(field).add(value);
+            }
+        }
+        return new ItemColumns(rows.size(), statuses, columns, nextCursor);
+    }
+}
@@ -1,17 +1,25 @@
 package com.siemens.internship;
 
-import jakarta.validation.Valid;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.validation.BindingResult;
-import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.Channels;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 @RestController
@@ -21,40 +29,283 @@ public class ItemController {
     @Autowired
     private ItemService itemService;
 
+    @Autowired
+    private ProcessingJobService processingJobService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ItemTransferService itemTransferService;
+
+    static final String NDJSON = "application/x-ndjson";
+    static final String COLUMNAR = ItemColumns.MEDIA_TYPE;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_BATCH_SIZE = 1000;
+
     // this worked fine before, but I added a try-catch in case something goes wrong,
     // for example, a database error
+    // the items are read as projections (ItemView) rather than entities; with fields=id,status only
+    // those columns are selected and every item is a map of just those fields
     @GetMapping
-    public ResponseEntity<List<Item>> getAllItems() {
+    public ResponseEntity<?> getAllItems(@RequestParam(required = false) List<String> fields) {
+        if (fields != null && !isSelectable(fields)) {
+            return unknownFields();
+        }
         try {
-            List<Item> items = itemService.findAll();
+            List<?> items = fields == null ? itemService.findAllViews() : itemService.findFields(fields, null, null).items();
             return new ResponseEntity<>(items, HttpStatus.OK);
         } catch (Exception e) {
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    // keyset pagination: returns at most "limit" items with an id greater than "after"
+    // the response contains the cursor for the next page, so clients never need the whole table at once
+    // "fields" works as for GET /api/items
+    @GetMapping(params = "limit")
+    public ResponseEntity<?> getItemsPage(@RequestParam int limit, @RequestParam(required = false) Long after,
+                                          @RequestParam(required = false) List<String> fields) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (fields != null && !isSelectable(fields)) {
+            return unknownFields();
+        }
+        try {
+            ItemPage<?> page = fields == null ? itemService.findPage(after, limit) : itemService.findFields(fields, after, limit);
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // the same listings (whole table, or one page with limit/after) in columns, see ItemColumns; chosen by
+    // content negotiation, so clients asking for JSON, CBOR or Smile still get getAllItems/getItemsPage
+    // without "fields", all the fields are selected
+    @GetMapping(produces = COLUMNAR)
+    public ResponseEntity<?> getAllItemsColumnar(@RequestParam(required = false) List<String> fields) {
+        return columnar(fields, null, null);
+    }
+
+    @GetMapping(params = "limit", produces = COLUMNAR)
+    public ResponseEntity<?> getItemsPageColumnar(@RequestParam int limit, @RequestParam(required = false) Long after,
+                                                  @RequestParam(required = false) List<String> fields) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return columnar(fields, after, limit);
+    }
+
+    private ResponseEntity<?> columnar(List<String> fields, Long after, Integer limit) {
+        if (fields != null && !isSelectable(fields)) {
+            return unknownFields();
+        }
+        List<String> selected = fields != null ? fields : ItemService.SELECTABLE_FIELDS;
+        try {
+            ItemPage<Map<String, Object>> page = itemService.findFields(selected, after, limit);
+            return new ResponseEntity<>(ItemColumns.of(selected, page.items(), page.nextCursor()), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private static boolean isSelectable(List<String> fields) {
+        return !fields.isEmpty() && ItemService.SELECTABLE_FIELDS.containsAll(fields) && fields.stream().distinct().count() == fields.size();
+    }
+
+    private static ResponseEntity<Map<String, String>> unknownFields() {
+        return new ResponseEntity<>(Map.of("fields", "Fields must be distinct and among " + ItemService.SELECTABLE_FIELDS),
+                HttpStatus.BAD_REQUEST);
+    }
+
+    // filtered listing, e.g. /api/items/filter?statusNot=PROCESSED or ?email=someone@example.com
+    // at least one filter is required (the unfiltered table is GET /api/items); status and statusNot exclude each other
+    @GetMapping("/filter")
+    public ResponseEntity<ItemQueryResult> filterItems(@RequestParam(required = false) String status,
+                                                       @RequestParam(required = false) String statusNot,
+                                                       @RequestParam(required = false) String email,
+                                                       @RequestParam(defaultValue = "0") int page,
+                                                       @RequestParam(defaultValue = "50") int size) {
+        ItemFilter filter = new ItemFilter(status, statusNot, email);
+        if (!filter.isValid() || page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return new ResponseEntity<>(itemService.findByFilter(filter, page, size), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // ranked full-text search over the words of name and description, e.g. /api/items/search?q=blue+chair
+    // every word of the query has to appear in an item; words in the name count more than in the description
+    // SERVICE_UNAVAILABLE while the index is still being built at startup
+    @GetMapping("/search")
+    public ResponseEntity<ItemSearchResult> searchItems(@RequestParam String q,
+                                                        @RequestParam(defaultValue = "0") int page,
+                                                        @RequestParam(defaultValue = "20") int size) {
+        if (q.isBlank() || page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (!itemService.isSearchReady()) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        try {
+            return new ResponseEntity<>(itemService.search(q, page, size), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // number of items matching the same filters, without loading any of them
+    @GetMapping("/filter/count")
+    public ResponseEntity<Map<String, Long>> countItems(@RequestParam(required = false) String status,
+                                                        @RequestParam(required = false) String statusNot,
+                                                        @RequestParam(required = false) String email) {
+        ItemFilter filter = new ItemFilter(status, statusNot, email);
+        if (!filter.isValid()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return new ResponseEntity<>(Map.of("count", itemService.countByFilter(filter)), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // items per status, their total and the processing backlog, served from in-memory counters instead of a
+    // GROUP BY per request, so a dashboard can poll it every second; SERVICE_UNAVAILABLE until they are seeded
+    @GetMapping("/aggregates")
+    public ResponseEntity<ItemAggregates> getAggregates() {
+        return itemService.getAggregates()
+                .map(aggregates -> new ResponseEntity<>(aggregates, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE));
+    }
+
+    // streams the whole table as newline-delimited JSON (one item per line)
+    // items are written to the response while they are read from the database, so memory stays flat
+    // regardless of the table size; the body is written on an async thread, not on the servlet thread
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamItems() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                itemService.streamAll(item -> {
+                    try {
+                        generator.writeObject(item);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    // the whole table as a file for backups and migrations, e.g. /api/items/export?format=csv&gzip=true
+    // streamed from a database cursor like /stream (see ItemTransferService); POST it to /import to load it again
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportItems(@RequestParam(defaultValue = "ndjson") String format,
+                                                             @RequestParam(defaultValue = "false") boolean gzip) {
+        ItemTransferFormat transferFormat;
+        try {
+            transferFormat = ItemTransferFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        StreamingResponseBody body = outputStream -> itemTransferService.export(Channels.newChannel(outputStream), transferFormat, gzip);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : transferFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(transferFormat.fileName("items", gzip)).build().toString())
+                .body(body);
+    }
+
+    // inserts the items of a file sent as the request body, e.g. POST /api/items/import?name=restore-1&format=csv&gzip=true
+    // the body is read while the rows are inserted, so the file is never held in memory
+    // "name" identifies the import: if it fails halfway, sending the same file again under the same name continues
+    // after the last committed row; CONFLICT once the import of that name has completed (or while it is running)
+    // OK if every row was imported, MULTI_STATUS if some were invalid (listed in the result with their line numbers)
+    @PostMapping("/import")
+    public ResponseEntity<ItemImportResult> importItems(@RequestParam String name,
+                                                        @RequestParam(defaultValue = "ndjson") String format,
+                                                        @RequestParam(defaultValue = "false") boolean gzip,
+                                                        InputStream body) {
+        if (name.isBlank()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            ItemImportResult result = itemTransferService.importFrom(Channels.newChannel(body), ItemTransferFormat.of(format), gzip, name);
+            return new ResponseEntity<>(result, result.failed() == 0 ? HttpStatus.OK : HttpStatus.MULTI_STATUS);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException | OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // how far the import of that name got
+    @GetMapping("/import/{name}")
+    public ResponseEntity<ItemImportCheckpoint> getImport(@PathVariable String name) {
+        return itemTransferService.findCheckpoint(name)
+                .map(checkpoint -> new ResponseEntity<>(checkpoint, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
     // http status codes were reversed here
-    // if "result" has errors, then the user sent invalid data (checked by @Valid)
-    // so we return BAD_REQUEST, otherwise we return CREATED
-    // since we use @Valid, but there were no annotations on the fields in Item class, I added some
-    // if some data is invalid, we return a map with the errors
+    // if the user sent invalid data we return BAD_REQUEST, otherwise we return CREATED
+    // the body is validated against the annotations I added to Item (see validate), whatever format it came in;
+    // if some data is invalid, we return a map with the errors (see handleInvalidItem)
     // and if the data is valid, but the item cannot be saved into the db, we return an INTERNAL_SERVER_ERROR
     @PostMapping
-    public ResponseEntity<?> createItem(@Valid @RequestBody Item item, BindingResult result) {
-        ResponseEntity<?> errors = getResponseEntity(result);
-        if (errors != null)
-            return errors;
-
+    public ResponseEntity<?> createItem(@RequestBody Item item) {
         // if the id is specified in the JSON request, and that id already exists in the db,
         // it shouldn't override existing data; to fix this, I set the id to null to make sure
         // the id is auto-generated and no overriding happens
         if (item.getId() != null) {
             item.setId(null);
         }
+        // same for the version: a new item always starts at the first version
+        item.setVersion(null);
+        validate(item);
 
         try {
             Item savedItem = itemService.save(item);
-            return new ResponseEntity<>(savedItem, HttpStatus.CREATED);
+            return withETag(ResponseEntity.status(HttpStatus.CREATED), savedItem.getVersion()).body(savedItem);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // creates many items in one request; every element is validated on its own and the response reports
+    // the outcome per element, so one invalid row doesn't reject the whole batch
+    // CREATED if every element was created, MULTI_STATUS if some of them failed
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResult> createItems(@RequestBody List<Item> items) {
+        if (items.isEmpty() || items.size() > MAX_BATCH_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            BatchResult result = itemService.createAll(items);
+            return new ResponseEntity<>(result, result.failed() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // updates many items in one request; every element must contain the id of the item to update
+    // OK if every element was updated, MULTI_STATUS if some of them were invalid or not found
+    @PutMapping("/batch")
+    public ResponseEntity<BatchResult> updateItems(@RequestBody List<Item> items) {
+        if (items.isEmpty() || items.size() > MAX_BATCH_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            BatchResult result = itemService.updateAll(items);
+            return new ResponseEntity<>(result, result.failed() == 0 ? HttpStatus.OK : HttpStatus.MULTI_STATUS);
         } catch (Exception e) {
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -63,11 +314,12 @@ public class ItemController {
     // replaced NO_CONTENT with NOT_FOUND because it seems more appropriate
     // NO_CONTENT means that the request was successful, but there is nothing to return,
     // but if the id doesn't exist, it means that the request was not successful
+    // the version of the item is returned as ETag, to be sent back in If-Match by updateItem and deleteItem
     @GetMapping("/{id}")
     public ResponseEntity<Item> getItemById(@PathVariable Long id) {
         try {
             return itemService.findById(id)
-                    .map(item -> new ResponseEntity<>(item, HttpStatus.OK))
+                    .map(item -> withETag(ResponseEntity.ok(), item.getVersion()).body(item))
                     .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
         } catch (Exception e) {
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
@@ -79,59 +331,225 @@ public class ItemController {
     // in case the id doesn't exist, we return NOT_FOUND instead of ACCEPTED
     // and OK instead of CREATED in case of success
     // prevented database errors with a try-catch
+    // the item is updated with a single UPDATE statement (see ItemService.updateById), so there is no
+    // findById + save before the write anymore
+    // optimistic locking: if the client sends the version it last saw (If-Match header, or "version" in the
+    // body), the update only happens if the item still has that version, otherwise PRECONDITION_FAILED;
+    // without it the update is unconditional, like before; either way the response is the stored row with
+    // its new version as the ETag
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateItem(@PathVariable Long id, @Valid @RequestBody Item item, BindingResult result) {
-        ResponseEntity<?> errors = getResponseEntity(result);
-        if (errors != null)
-            return errors;
-        try {
-            Optional<Item> existingItem = itemService.findById(id);
-            if (existingItem.isPresent()) {
-                item.setId(id);
-                Item updatedItem = itemService.save(item);
-                return new ResponseEntity<>(updatedItem, HttpStatus.OK);
-            } else {
-                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-            }
+    public ResponseEntity<?> updateItem(@PathVariable Long id, @RequestBody Item item,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion;
+        try {
+            expectedVersion = ifMatch != null ? parseETag(ifMatch) : item.getVersion();
+        } catch (NumberFormatException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        validate(item);
+
+        try {
+            ItemService.UpdateResult update = itemService.updateById(id, item, expectedVersion);
+            return switch (update.result()) {
+                // the row as written, with the version the next If-Match needs
+                case DONE -> withETag(ResponseEntity.ok(), update.item().getVersion()).body(update.item());
+                case NOT_FOUND -> new ResponseEntity<>(HttpStatus.NOT_FOUND);
+                case VERSION_MISMATCH -> new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+            };
         } catch (Exception e) {
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
-    private ResponseEntity<?> getResponseEntity(BindingResult result) {
-        if (result.hasErrors()) {
-            Map<String, String> errors = new HashMap<>();
-            for (FieldError error : result.getFieldErrors()) {
-                errors.put(error.getField(), error.getDefaultMessage());
-            }
-            return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
+    // ETags are the quoted version number; "*" matches any version, so it is the same as no If-Match
+    private static Long parseETag(String eTag) {
+        String value = eTag.trim();
+        if (value.equals("*")) {
+            return null;
         }
-        return null;
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        return Long.parseLong(value.replace("\"", ""));
+    }
+
+    private static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder builder, Long version) {
+        return version != null ? builder.eTag("\"" + version + "\"") : builder;
+    }
+
+    // the same field -> message map that used to be built from the BindingResult
+    // instead of @Valid, with the same messages as the bulk endpoints; the only check a single item body goes
+    // through, for JSON as well as the binary formats (CborConverter, SmileConverter)
+    private static void validate(Item item) {
+        Map<String, String> errors = ItemCodec.validate(item);
+        if (!errors.isEmpty()) {
+            throw new ItemValidationException(errors);
+        }
+    }
+
+    @ExceptionHandler(ItemValidationException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidItem(ItemValidationException e) {
+        return new ResponseEntity<>(e.getErrors(), HttpStatus.BAD_REQUEST);
     }
 
     // check if the id exists in the db before deleting
     // if it does, delete it and return NO_CONTENT instead of HttpStatus.CONFLICT
     // if it doesn't, return NOT_FOUND
     // added a try-catch to prevent database errors
+    // the existence check is now the result of a single DELETE statement,
+    // and an If-Match header makes the delete conditional, just like for updateItem
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteItem(@PathVariable Long id) {
-        try {
-            Optional<Item> existingItem = itemService.findById(id);
-            if (existingItem.isPresent()) {
-                itemService.deleteById(id);
-                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
-            } else {
-                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-            }
+    public ResponseEntity<Void> deleteItem(@PathVariable Long id,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion;
+        try {
+            expectedVersion = ifMatch != null ? parseETag(ifMatch) : null;
+        } catch (NumberFormatException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        try {
+            return switch (itemService.deleteById(id, expectedVersion)) {
+                case DONE -> new ResponseEntity<>(HttpStatus.NO_CONTENT);
+                case NOT_FOUND -> new ResponseEntity<>(HttpStatus.NOT_FOUND);
+                case VERSION_MISMATCH -> new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+            };
         } catch (Exception e) {
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    // with incremental=true only the items changed since the last successful run are processed
+    // items that fail even after their retries don't fail the request: the body holds the items that were
+    // processed, the counts are in the X-Items-* headers, and if any item failed the status is MULTI_STATUS
+    // (the failures are in GET /process/dead-letters); INTERNAL_SERVER_ERROR is left for runs that broke down
     @GetMapping("/process")
-    public CompletableFuture<ResponseEntity<List<Item>>> processItems() {
-        return itemService.processItemsAsync()
-                .thenApply(items -> new ResponseEntity<>(items, HttpStatus.OK))
+    public CompletableFuture<ResponseEntity<List<Item>>> processItems(@RequestParam(defaultValue = "false") boolean incremental) {
+        ProcessingJob run = itemService.startCollectingRun(incremental ? ProcessingJob.Mode.INCREMENTAL : ProcessingJob.Mode.FULL);
+        return run.getResult()
+                .thenApply(items -> {
+                    ProcessingJob.Status status = run.getStatus();
+                    return ResponseEntity.status(status.failed() > 0 ? HttpStatus.MULTI_STATUS : HttpStatus.OK)
+                            .header("X-Items-Processed", String.valueOf(status.processed()))
+                            .header("X-Items-Failed", String.valueOf(status.failed()))
+                            .header("X-Items-Skipped", String.valueOf(status.skipped()))
+                            .body(items);
+                })
                 .exceptionally(ex -> new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR));
     }
-}
\ No newline at end of file
+
+    // processes the items and sends every processed chunk to the client as a server-sent event ("items")
+    // as soon as it is saved, followed by a final "summary" event with the counts of the run
+    // (or an "error" event if the run failed); nothing is collected on the server in the meantime
+    // if the client disconnects, the rest of the run is cancelled
+    @GetMapping(value = "/process/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamProcessing() {
+        // no timeout: the stream ends when the run ends
+        SseEmitter emitter = new SseEmitter(0L);
+        ProcessingJob job = itemService.startStreamingRun(items -> {
+            try {
+                emitter.send(SseEmitter.event().name("items").data(items, MediaType.APPLICATION_JSON));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        emitter.onError(ex -> job.cancel());
+        emitter.onTimeout(job::cancel);
+
+        job.getResult().whenComplete((items, ex) -> {
+            try {
+                emitter.send(SseEmitter.event()
+                        .name(ex == null ? "summary" : "error")
+                        .data(job.getStatus(), MediaType.APPLICATION_JSON));
+                emitter.complete();
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    // set-based variant of the processing: moves all items (optionally only those in status "from") to
+    // "status" with UPDATE statements and returns the number of affected rows instead of the items
+    // "partitionSize" splits the update into id ranges of that size, each in its own transaction
+    @PostMapping("/process/bulk")
+    public ResponseEntity<BulkUpdateResult> processItemsBulk(@RequestParam(defaultValue = "PROCESSED") String status,
+                                                             @RequestParam(required = false) String from,
+                                                             @RequestParam(required = false) Integer partitionSize) {
+        if (status.isBlank() || (from != null && from.isBlank()) || (partitionSize != null && partitionSize < 1)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return new ResponseEntity<>(itemService.transitionStatus(from, status, partitionSize), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // statistics of the thread pool that processes the items, to see how busy it is and whether
+    // chunks are piling up in its queue
+    @GetMapping("/process/executor")
+    public ResponseEntity<ItemProcessingExecutor.ExecutorStats> getProcessingExecutorStats() {
+        return new ResponseEntity<>(itemService.getExecutorStats(), HttpStatus.OK);
+    }
+
+    // starts processing in the background and returns right away with the job id;
+    // the Location header points to the status of the job; incremental=true as for GET /process
+    @PostMapping("/process")
+    public ResponseEntity<ProcessingJob.Status> startProcessingJob(@RequestParam(defaultValue = "false") boolean incremental) {
+        return startJob(incremental ? ProcessingJob.Mode.INCREMENTAL : ProcessingJob.Mode.FULL);
+    }
+
+    // the items the processor gave up on, with the cause of their last failure; paged like GET /api/items
+    @GetMapping("/process/dead-letters")
+    public ResponseEntity<List<ItemDeadLetter>> getDeadLetters(@RequestParam(defaultValue = "100") int limit,
+                                                               @RequestParam(required = false) Long after) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(itemService.findDeadLetters(after, limit), HttpStatus.OK);
+    }
+
+    // starts a job that retries only the items in the dead-letter table; the ones that succeed now
+    // (or don't exist anymore) are removed from it
+    @PostMapping("/process/dead-letters")
+    public ResponseEntity<ProcessingJob.Status> reprocessDeadLetters() {
+        return startJob(ProcessingJob.Mode.DEAD_LETTERS);
+    }
+
+    private ResponseEntity<ProcessingJob.Status> startJob(ProcessingJob.Mode mode) {
+        try {
+            ProcessingJob.Status status = processingJobService.startJob(mode);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/items/process/" + status.jobId()))
+                    .body(status);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // processed, failed and total counts of a job, plus its throughput and the estimated time left
+    @GetMapping("/process/{jobId}")
+    public ResponseEntity<ProcessingJob.Status> getProcessingJob(@PathVariable String jobId) {
+        return processingJobService.getJobStatus(jobId)
+                .map(status -> new ResponseEntity<>(status, HttpStatus.OK))
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    // asks a running job to stop; chunks that are already being processed still finish,
+    // so the job reaches the CANCELLED state shortly after this returns ACCEPTED
+    // a job that has already finished cannot be cancelled anymore, so that is a CONFLICT
+    @DeleteMapping("/process/{jobId}")
+    public ResponseEntity<ProcessingJob.Status> cancelProcessingJob(@PathVariable String jobId) {
+        return processingJobService.cancelJob(jobId)
+                .map(status -> new ResponseEntity<>(status,
+                        status.state() == ProcessingJob.State.RUNNING ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT))
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    // hit/miss/eviction statistics of the item cache used by the lookups by id
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ItemCache.CacheStats> getCacheStats() {
+        return new ResponseEntity<>(itemService.getCacheStats(), HttpStatus.OK);
+    }
+}
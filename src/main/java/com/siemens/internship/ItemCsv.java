@@ -0,0 +1,138 @@
+package com.siemens.internship;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+// CSV as in RFC 4180: comma-separated, a field that contains a comma, a quote or a line break is quoted and its
+// quotes are doubled; a null is written as an empty field and read back as null
+// a quoted field may span several lines, so a record is only complete once its quotes are balanced
+final class ItemCsv {
+
+    static final List<String> COLUMNS = ItemService.SELECTABLE_FIELDS;
+
+    private ItemCsv() {
+    }
+
+    static void writeHeader(Writer out) throws IOException {
+        out.write(String.join(",", COLUMNS));
+        out.write('\n');
+    }
+
+    static void write(Writer out, ItemView item) throws IOException {
+        writeField(out, item.id() != null ? item.id().toString() : null);
+        out.write(',');
+        writeField(out, item.name());
+        out.write(',');
+        writeField(out, item.description());
+        out.write(',');
+        writeField(out, item.status());
+        out.write(',');
+        writeField(out, item.email());
+        out.write(',');
+        writeField(out, item.version() != null ? item.version().toString() : null);
+        out.write(',');
+        writeField(out, item.lastModified() != null ? item.lastModified().toString() : null);
+        out.write('\n');
+    }
+
+    private static void writeField(Writer out, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (!needsQuotes(value)) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    // an empty string is quoted too, so it can be told apart from a null
+    private static boolean needsQuotes(String value) {
+        if (value.isEmpty()) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // false while a quoted field is still open, i.e. the record goes on on the next line
+    static boolean isComplete(CharSequence record) {
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            if (record.charAt(i) == '"') {
+                quoted = !quoted;
+            }
+        }
+        return !quoted;
+    }
+
+    // the fields of one complete record; an unquoted empty field is null
+    static List<String> parse(String record) {
+        List<String> fields = new ArrayList<>(COLUMNS.size());
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.length() > 0 || wasQuoted ? field.toString() : null);
+                field.setLength(0);
+                wasQuoted = false;
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.length() > 0 || wasQuoted ? field.toString() : null);
+        return fields;
+    }
+
+    // the columns of the header, by name; the business fields are required, the others (id, version, lastModified)
+    // may be missing since an import ignores them anyway
+    static int[] columnIndexes(List<String> header) {
+        int[] indexes = new int[COLUMNS.size()];
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            indexes[i] = header.indexOf(COLUMNS.get(i));
+        }
+        for (String required : List.of("name", "description", "status", "email")) {
+            if (indexes[COLUMNS.indexOf(required)] < 0) {
+                throw new IllegalArgumentException("The CSV header has no \"" + required + "\" column");
+            }
+        }
+        return indexes;
+    }
+
+    static Item toItem(List<String> fields, int[] indexes) {
+        Item item = new Item();
+        item.setName(field(fields, indexes, "name"));
+        item.setDescription(field(fields, indexes, "description"));
+        item.setStatus(field(fields, indexes, "status"));
+        item.setEmail(field(fields, indexes, "email"));
+        return item;
+    }
+
+    private static String field(List<String> fields, int[] indexes, String column) {
+        int index = indexes[COLUMNS.indexOf(column)];
+        return index >= 0 && index < fields.size() ? fields.get(index) : null;
+    }
+}
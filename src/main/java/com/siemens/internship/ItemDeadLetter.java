@@ -0,0 +1,39 @@
+package com.siemens.internship;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// an item the processor gave up on after all its retries, with the reason of the last failure
+// there is at most one row per item: failing again in a later run updates it, and processing the item
+// successfully (POST /api/items/process/dead-letters) removes it
+@Entity
+@Table(indexes = @Index(name = "idx_item_dead_letter_item", columnList = "itemId", unique = true))
+@Getter
+@Setter
+@NoArgsConstructor
+public class ItemDeadLetter {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_dead_letter_seq")
+    @SequenceGenerator(name = "item_dead_letter_seq", sequenceName = "item_dead_letter_seq", allocationSize = 50)
+    private Long id;
+
+    private Long itemId;
+
+    // exception class and message of the last attempt
+    @Column(length = 1000)
+    private String cause;
+
+    // attempts over all runs that tried the item
+    private int attempts;
+
+    private Instant firstFailedAt;
+    private Instant lastFailedAt;
+
+    public ItemDeadLetter(Long itemId) {
+        this.itemId = itemId;
+    }
+}
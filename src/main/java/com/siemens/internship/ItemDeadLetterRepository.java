@@ -0,0 +1,27 @@
+package com.siemens.internship;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ItemDeadLetterRepository extends JpaRepository<ItemDeadLetter, Long> {
+
+    Optional<ItemDeadLetter> findByItemId(Long itemId);
+
+    // keyset pagination over the item ids, the same way ItemRepository.findIdsAfter walks the items
+    @Query("SELECT d.itemId FROM ItemDeadLetter d WHERE d.itemId > :after ORDER BY d.itemId")
+    List<Long> findItemIdsAfter(@Param("after") Long after, Pageable pageable);
+
+    @Query("SELECT d FROM ItemDeadLetter d WHERE d.itemId > :after ORDER BY d.itemId")
+    List<ItemDeadLetter> findPageAfter(@Param("after") Long after, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM ItemDeadLetter d WHERE d.itemId IN :itemIds")
+    int deleteByItemIds(@Param("itemIds") Collection<Long> itemIds);
+}
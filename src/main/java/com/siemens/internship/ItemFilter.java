@@ -0,0 +1,15 @@
+package com.siemens.internship;
+
+// filter of GET /api/items/filter: items with the given status (or with any status except "statusNot")
+// and/or with the given email; null fields don't filter
+public record ItemFilter(String status, String statusNot, String email) {
+
+    public boolean isEmpty() {
+        return status == null && statusNot == null && email == null;
+    }
+
+    // status and statusNot exclude each other
+    public boolean isValid() {
+        return !isEmpty() && (status == null || statusNot == null);
+    }
+}
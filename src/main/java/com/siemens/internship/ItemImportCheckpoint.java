@@ -0,0 +1,44 @@
+package com.siemens.internship;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// how far an import got (see ItemTransferService): it is saved in the same transaction as every batch of
+// inserted items, so "byteOffset" is always exactly where the committed rows end, and an import started again
+// under the same name continues from there instead of inserting the first rows a second time
+// the version keeps two imports with the same name from running over each other
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class ItemImportCheckpoint {
+    @Id
+    private String name;
+
+    private String format;
+
+    // offset in the uncompressed input of the first record that hasn't been committed yet
+    private long byteOffset;
+
+    // lines before that offset, for error messages
+    private long line;
+
+    private long imported;
+    private long failed;
+    private boolean completed;
+
+    private Instant startedAt;
+    private Instant updatedAt;
+
+    @Version
+    private Long version;
+
+    public ItemImportCheckpoint(String name, ItemTransferFormat format) {
+        this.name = name;
+        this.format = format.name();
+    }
+}
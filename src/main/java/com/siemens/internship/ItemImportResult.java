@@ -0,0 +1,13 @@
+package com.siemens.internship;
+
+import java.util.List;
+import java.util.Map;
+
+// outcome of one import call: "imported" and "failed" are totals of the import under this name, including the
+// calls it was resumed from; "resumedAt" is the line it continued after (0 for a fresh start); "errors" are the
+// first invalid rows of this call, with their line numbers and the same field -> message map as POST /api/items
+public record ItemImportResult(String name, long imported, long failed, long resumedAt, List<RowError> errors) {
+
+    public record RowError(long line, Map<String, String> errors) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.siemens.internship;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+
+// reads and writes single items with ItemCodec instead of the generic Jackson converter
+// Spring Boot puts HttpMessageConverter beans in front of its default converters, so @RequestBody Item and
+// ResponseEntity<Item> use this one; lists, pages and the other response types still go through Jackson
+// reading only parses; createItem and updateItem validate the item once, whatever format it came in
+@Component
+public class ItemJsonConverter extends AbstractHttpMessageConverter<Item> {
+
+    private final JsonFactory jsonFactory;
+
+    public ItemJsonConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Item.class == clazz;
+    }
+
+    @Override
+    protected Item readInternal(Class<? extends Item> clazz, HttpInputMessage inputMessage) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(inputMessage.getBody())) {
+            return ItemCodec.read(parser);
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + e.getOriginalMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Item item, HttpOutputMessage outputMessage) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+            ItemCodec.write(generator, item);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.siemens.internship;
+
+import java.util.List;
+
+// one page of GET /api/items?limit=..&after=..; the items are entities, or field maps when "fields" was given
+// "nextCursor" is the id to pass as "after" to get the next page, or null if this was the last page
+public record ItemPage<T>(List<T> items, Long nextCursor) {
+}
@@ -0,0 +1,134 @@
+package com.siemens.internship;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// coordinates partitioned processing between several instances that share one database
+// the id space is split into ranges once per sweep (under a lock on the sweep row), and every
+// instance then claims ranges from the lease table, processes them, and marks them done; a range
+// whose lease is not renewed in time goes back to the pool, so work of a dead instance is picked up
+// by the others; nothing is held in memory, so instances can join or leave at any time
+@Component
+public class ItemPartitionCoordinator {
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemRangeLeaseRepository leaseRepository;
+    @Autowired
+    private ProcessingSweepRepository sweepRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ItemProcessingProperties processingProperties;
+
+    // claim candidates read per attempt; more than one, so losing a race doesn't need another query
+    private static final int CLAIM_CANDIDATES = 5;
+
+    private String nodeId;
+
+    @PostConstruct
+    void initNodeId() {
+        String configured = processingProperties.getPartitioning().getNodeId();
+        nodeId = configured != null && !configured.isBlank() ? configured : UUID.randomUUID().toString();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // joins the sweep that is still in progress, or, if there is none, plans a new one over the current ids
+    // the first sweep ever inserts the row, and two instances doing that at the same time collide on its
+    // primary key; the loser simply retries and finds the row
+    public ProcessingSweep joinOrPlanSweep() {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> joinOrPlanSweepLocked());
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= 2) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private ProcessingSweep joinOrPlanSweepLocked() {
+        ProcessingSweep sweep = sweepRepository.findForUpdate(ItemProcessor.NAME).orElse(null);
+        if (sweep == null) {
+            sweep = sweepRepository.saveAndFlush(new ProcessingSweep(ItemProcessor.NAME, null, null, null));
+        } else if (sweep.getCompletedAt() == null && leaseRepository.countBySweepIdAndDoneFalse(sweep.getSweepId()) > 0) {
+            return sweep;
+        }
+
+        String sweepId = UUID.randomUUID().toString();
+        long rangeSize = processingProperties.getPartitioning().getRangeSize();
+        List<ItemRangeLease> ranges = new ArrayList<>();
+        IdRange ids = itemRepository.findIdRange();
+        if (!ids.isEmpty()) {
+            for (long from = ids.from(); from <= ids.to(); from += rangeSize) {
+                long to = Math.min(from + rangeSize - 1, ids.to());
+                ranges.add(new ItemRangeLease(sweepId, from, to));
+                if (to == ids.to()) {
+                    break;
+                }
+            }
+        }
+        leaseRepository.deleteOtherSweeps(sweepId);
+        leaseRepository.saveAll(ranges);
+
+        sweep.setSweepId(sweepId);
+        sweep.setStartedAt(Instant.now());
+        sweep.setCompletedAt(null);
+        return sweepRepository.save(sweep);
+    }
+
+    // claims the lowest free range of the sweep for this instance, or returns empty if none is free right now
+    public Optional<ItemRangeLease> claimNext(ProcessingSweep sweep) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(processingProperties.getPartitioning().getLeaseDuration());
+        List<ItemRangeLease> candidates = leaseRepository.findClaimable(sweep.getSweepId(), now, PageRequest.ofSize(CLAIM_CANDIDATES));
+        for (ItemRangeLease candidate : candidates) {
+            int claimed = transactionTemplate.execute(status -> leaseRepository.claim(candidate.getId(), nodeId, expiresAt, now));
+            if (claimed > 0) {
+                candidate.setOwner(nodeId);
+                candidate.setLeaseExpiresAt(expiresAt);
+                return Optional.of(candidate);
+            }
+        }
+        return Optional.empty();
+    }
+
+    // false once the lease was lost (it expired and another instance took the range over)
+    public boolean renew(ItemRangeLease lease) {
+        Instant expiresAt = Instant.now().plus(processingProperties.getPartitioning().getLeaseDuration());
+        return transactionTemplate.execute(status -> leaseRepository.renew(lease.getId(), nodeId, expiresAt)) > 0;
+    }
+
+    public void complete(ItemRangeLease lease) {
+        transactionTemplate.execute(status -> leaseRepository.complete(lease.getId(), nodeId));
+    }
+
+    // gives a range back without finishing it (cancelled or failed run), so another instance can take it now
+    // instead of after the lease expired
+    public void release(ItemRangeLease lease) {
+        transactionTemplate.execute(status -> leaseRepository.release(lease.getId(), nodeId));
+    }
+
+    public boolean hasUnfinishedRanges(ProcessingSweep sweep) {
+        return leaseRepository.countBySweepIdAndDoneFalse(sweep.getSweepId()) > 0;
+    }
+
+    // true only for the one instance that marks the sweep as completed
+    public boolean markCompleted(ProcessingSweep sweep) {
+        return transactionTemplate.execute(status -> sweepRepository.markCompleted(sweep.getSweepId(), Instant.now())) > 0;
+    }
+}
@@ -0,0 +1,192 @@
+package com.siemens.internship;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// dedicated, bounded thread pool for processing item chunks
+// before this, the work was submitted with CompletableFuture.runAsync without an executor, so the blocking
+// JPA calls ran on ForkJoinPool.commonPool() and starved everything else in the JVM that uses it
+// this is deliberately not registered as an Executor bean, so Spring Boot still creates its own
+// "applicationTaskExecutor" for @Async methods and the coordinating thread never competes with the chunks
+// its pool size, active threads, queue depth and completed tasks are published as "executor.*" metrics
+// with items.processing.executor.virtual-threads (Java 21+) the chunks run on virtual threads instead, see
+// VirtualThreadChunks
+@Component
+public class ItemProcessingExecutor implements DisposableBean, MeterBinder {
+
+    public static final String NAME = "item-processing";
+
+    // exactly one of the two is set: the pool, or the virtual threads that are used instead of it
+    private final ThreadPoolExecutor executor;
+    private final VirtualThreadChunks virtualThreads;
+    private final int awaitTerminationSeconds;
+    // tasks that found the pool and its queue full, by what became of them: rejected (the submit failed), or
+    // still run by the submitting thread (CALLER_RUNS) or queued once there was room (BLOCK)
+    private final LongAdder rejectedTasks = new LongAdder();
+    private final LongAdder callerRunsTasks = new LongAdder();
+    private final LongAdder blockedTasks = new LongAdder();
+
+    @Autowired
+    public ItemProcessingExecutor(ItemProcessingProperties processingProperties, ObjectProvider<DataSource> dataSource) {
+        ItemProcessingProperties.Executor settings = processingProperties.getExecutor();
+        if (settings.isVirtualThreads() && VirtualThreadChunks.isSupported()) {
+            this.virtualThreads = new VirtualThreadChunks(virtualThreadsLimit(settings, dataSource), settings.getAwaitTerminationSeconds());
+            this.executor = null;
+        } else {
+            this.virtualThreads = null;
+            this.executor = newPool(settings);
+        }
+        this.awaitTerminationSeconds = settings.getAwaitTerminationSeconds();
+    }
+
+    private ThreadPoolExecutor newPool(ItemProcessingProperties.Executor settings) {
+        // a SynchronousQueue hands tasks directly to a thread, which is what a capacity of 0 means
+        BlockingQueue<Runnable> queue = settings.getQueueCapacity() > 0
+                ? new ArrayBlockingQueue<>(settings.getQueueCapacity())
+                : new SynchronousQueue<>();
+
+        return new ThreadPoolExecutor(
+                settings.getCorePoolSize(),
+                Math.max(settings.getCorePoolSize(), settings.getMaxPoolSize()),
+                settings.getKeepAliveSeconds(), TimeUnit.SECONDS,
+                queue,
+                new CustomizableThreadFactory(NAME + "-"),
+                rejectionHandler(settings.getRejectionPolicy()));
+    }
+
+    // each chunk holds a connection for its transaction, so by default as many chunks as the pool has connections
+    private static int virtualThreadsLimit(ItemProcessingProperties.Executor settings, ObjectProvider<DataSource> dataSource) {
+        if (settings.getVirtualThreadsMaxConcurrency() > 0) {
+            return settings.getVirtualThreadsMaxConcurrency();
+        }
+        DataSource pool = dataSource.getIfAvailable();
+        try {
+            if (pool != null && pool.isWrapperFor(HikariDataSource.class)) {
+                return pool.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            // not a Hikari pool after all, use the pool size below
+        }
+        return settings.getMaxPoolSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (virtualThreads != null) {
+            virtualThreads.bindTo(registry, NAME);
+            return;
+        }
+        new ExecutorServiceMetrics(executor, NAME, List.of()).bindTo(registry);
+        FunctionCounter.builder("executor.rejected", rejectedTasks, LongAdder::sum)
+                .tag("name", NAME)
+                .description("Tasks that were not accepted")
+                .register(registry);
+        FunctionCounter.builder("executor.saturated", callerRunsTasks, LongAdder::sum)
+                .tags("name", NAME, "outcome", "caller_runs")
+                .description("Tasks that found the pool and its queue full and ran on the submitting thread")
+                .register(registry);
+        FunctionCounter.builder("executor.saturated", blockedTasks, LongAdder::sum)
+                .tags("name", NAME, "outcome", "blocked")
+                .description("Tasks that found the pool and its queue full and were queued once there was room")
+                .register(registry);
+    }
+
+    public Executor getExecutor() {
+        return virtualThreads != null ? virtualThreads : executor;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads != null;
+    }
+
+    public ExecutorStats getStats() {
+        if (virtualThreads != null) {
+            return virtualThreads.getStats(NAME);
+        }
+        return new ExecutorStats(
+                NAME,
+                executor.getPoolSize(),
+                executor.getMaximumPoolSize(),
+                executor.getActiveCount(),
+                executor.getQueue().size(),
+                executor.getQueue().remainingCapacity(),
+                executor.getCompletedTaskCount(),
+                rejectedTasks.sum(),
+                callerRunsTasks.sum() + blockedTasks.sum(),
+                false);
+    }
+
+    // a task is never dropped silently: after shutdown every policy throws, otherwise the future
+    // of the dropped chunk would never complete and the run would hang
+    // only a task that is not accepted counts as rejected; CALLER_RUNS and BLOCK still run it, which is counted
+    // as saturation instead
+    private RejectedExecutionHandler rejectionHandler(ItemProcessingProperties.RejectionPolicy policy) {
+        RejectedExecutionHandler handler = switch (policy) {
+            case CALLER_RUNS -> (task, pool) -> {
+                callerRunsTasks.increment();
+                task.run();
+            };
+            case ABORT -> (task, pool) -> {
+                rejectedTasks.increment();
+                throw new RejectedExecutionException("Executor " + NAME + " is saturated");
+            };
+            case BLOCK -> (task, pool) -> {
+                try {
+                    pool.getQueue().put(task);
+                    blockedTasks.increment();
+                } catch (InterruptedException e) {
+                    rejectedTasks.increment();
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("Interrupted while waiting for room in " + NAME, e);
+                }
+            };
+        };
+        return (task, pool) -> {
+            if (pool.isShutdown()) {
+                rejectedTasks.increment();
+                throw new RejectedExecutionException("Executor " + NAME + " has been shut down");
+            }
+            handler.rejectedExecution(task, pool);
+        };
+    }
+
+    // let the chunks that are already running or queued finish when the context is closed,
+    // and only interrupt them if they take longer than the configured timeout
+    @Override
+    public void destroy() throws InterruptedException {
+        if (virtualThreads != null) {
+            virtualThreads.close();
+            return;
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(awaitTerminationSeconds, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    public record ExecutorStats(String name,
+                                int poolSize,
+                                int maxPoolSize,
+                                int activeThreads,
+                                int queueDepth,
+                                int queueRemainingCapacity,
+                                long completedTasks,
+                                long rejectedTasks,
+                                long saturatedTasks,
+                                boolean virtualThreads) {
+    }
+}
@@ -0,0 +1,175 @@
+package com.siemens.internship;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+// tuning knobs for processItemsAsync, bound from the "items.processing.*" properties
+// so they can be changed per environment without touching the code
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "items.processing")
+public class ItemProcessingProperties {
+
+    // how many items are loaded with one findAllById and written back with one saveAll;
+    // each chunk is processed in its own transaction
+    @Min(1)
+    private int chunkSize = 500;
+
+    // how many chunks may be processed at the same time (by all runs together); once this many are running,
+    // reading the next page of ids waits until one of them finishes
+    // with the adaptive limiter this is the upper bound, and the actual limit moves below it with the load
+    @Min(1)
+    private int maxInFlightChunks = 4;
+
+    // how long a finished job started through POST /api/items/process can still be polled
+    @NotNull
+    private Duration jobRetention = Duration.ofHours(1);
+
+    // a successful run moves the watermark to the time it started minus this overlap, so an item written by a
+    // transaction that was still open when the run started (stamped before, committed after) is picked up by
+    // the next incremental run instead of being skipped; items in the overlap may be processed twice
+    @NotNull
+    private Duration watermarkOverlap = Duration.ofSeconds(5);
+
+    // settings of the dedicated thread pool that runs the chunks (see ItemProcessingExecutor)
+    @Valid
+    private Executor executor = new Executor();
+
+    // retries of single items once their chunk failed (see ItemProcessor.processChunk)
+    @Valid
+    private Retry retry = new Retry();
+
+    // settings of the adaptive concurrency limit (see AdaptiveConcurrencyLimiter)
+    @Valid
+    private Limiter limiter = new Limiter();
+
+    // settings of the multi-instance mode (see ItemPartitionCoordinator)
+    @Valid
+    private Partitioning partitioning = new Partitioning();
+
+    @Getter
+    @Setter
+    public static class Executor {
+
+        @Min(1)
+        private int corePoolSize = 4;
+
+        @Min(1)
+        private int maxPoolSize = 4;
+
+        // chunks waiting for a free thread; once the queue is full the rejection policy decides what happens
+        @Min(0)
+        private int queueCapacity = 100;
+
+        // idle time after which threads above the core size are stopped
+        @Min(0)
+        private int keepAliveSeconds = 60;
+
+        @NotNull
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.CALLER_RUNS;
+
+        // every chunk runs on its own virtual thread instead of on the pool above, so a chunk blocked on the
+        // database costs no platform thread; needs Java 21+, on older runtimes the pool is used anyway
+        // the pool sizes, queue and rejection policy don't apply in this mode
+        private boolean virtualThreads = false;
+
+        // chunks running at the same time on virtual threads; each one holds a database connection for its
+        // transaction, so 0 means the maximum size of the connection pool; further chunks wait for a slot
+        @Min(0)
+        private int virtualThreadsMaxConcurrency = 0;
+
+        // how long shutdown waits for running and queued chunks before interrupting them
+        @Min(0)
+        private int awaitTerminationSeconds = 30;
+    }
+
+    @Getter
+    @Setter
+    public static class Retry {
+
+        // attempts per item, including the first one; an item still failing after that goes to the dead-letter table
+        @Min(1)
+        private int maxAttempts = 3;
+
+        // wait before the second attempt; every further wait is multiplied by "multiplier", up to maxBackoff
+        @NotNull
+        private Duration initialBackoff = Duration.ofMillis(100);
+
+        @DecimalMin("1.0")
+        private double multiplier = 2.0;
+
+        @NotNull
+        private Duration maxBackoff = Duration.ofSeconds(2);
+    }
+
+    @Getter
+    @Setter
+    public static class Limiter {
+
+        // when disabled the limit stays at maxInFlightChunks
+        private boolean enabled = true;
+
+        // the limit never goes below this, so processing keeps moving even under heavy load
+        @Min(1)
+        private int minLimit = 1;
+
+        // what the limit is multiplied with on a failed chunk or when latency is too high
+        @DecimalMin("0.1")
+        @DecimalMax("0.99")
+        private double backoffRatio = 0.9;
+
+        // how many times slower than the best latency seen the database may get before backing off
+        @DecimalMin("1.0")
+        private double latencyTolerance = 2.0;
+
+        // a latency that was last measured longer ago than this no longer says anything about the load, e.g. the
+        // API latency after the requests stopped; it is ignored until the next sample starts it over
+        @NotNull
+        private Duration sampleMaxAge = Duration.ofSeconds(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Partitioning {
+
+        // when enabled, full runs split the id space into ranges shared by all instances through the
+        // lease table, instead of every instance sweeping the whole table
+        private boolean enabled = false;
+
+        // identifies this instance as the owner of a lease; defaults to a random id per start
+        private String nodeId;
+
+        // width of one range of ids
+        @Min(1)
+        private long rangeSize = 10_000;
+
+        // how long a claimed range stays with an instance without being renewed; it is renewed after
+        // every chunk, so it has to be well above the time a single chunk takes
+        @NotNull
+        private Duration leaseDuration = Duration.ofSeconds(30);
+
+        // how often an instance that has nothing left to claim checks whether ranges held by other
+        // instances were finished or can be taken over
+        @NotNull
+        private Duration pollInterval = Duration.ofSeconds(1);
+    }
+
+    public enum RejectionPolicy {
+        // the thread submitting the chunk processes it itself, which naturally slows down the producer
+        CALLER_RUNS,
+        // the chunk is rejected and the processing run fails
+        ABORT,
+        // the submitting thread waits until there is room in the queue
+        BLOCK
+    }
+}
@@ -0,0 +1,392 @@
+package com.siemens.internship;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static java.util.function.Predicate.not;
+
+// the chunked processing pipeline behind ItemService.processItemsAsync (see the notes there)
+// it lives in its own bean so that ItemService can decide whether a run has to be started at all
+// before the call goes through the @Async proxy
+@Component
+public class ItemProcessor {
+    // key of this processor's row in the watermark table
+    public static final String NAME = "item-status";
+    // the status processing gives an item; everything else is backlog
+    public static final String PROCESSED = "PROCESSED";
+
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ProcessingWatermarkRepository watermarkRepository;
+    @Autowired
+    private ItemPartitionCoordinator partitionCoordinator;
+    @Autowired
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    @Autowired
+    private ItemDeadLetterRepository deadLetterRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ItemProcessingProperties processingProperties;
+    @Autowired
+    private ItemProcessingExecutor processingExecutor;
+    @Autowired
+    private ItemCache itemCache;
+    @Autowired
+    private ItemWriteBehindBuffer writeBehind;
+    @Autowired
+    private ItemStatusAggregates statusAggregates;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // runs one processing run described by "job"; all the state of the run (counters, results,
+    // cancellation) lives in the job and in this method's local variables, never in fields
+    @Async
+    public CompletableFuture<List<Item>> process(ProcessingJob job) {
+        int chunkSize = processingProperties.getChunkSize();
+        List<CompletableFuture<List<Item>>> futures = new ArrayList<>();
+        Timer.Sample runSample = Timer.start(meterRegistry);
+        // taken before the first id is read, so anything changed while the run is going is still newer than
+        // the watermark this run leaves behind
+        Instant runStartedAt = Instant.now();
+        // where the watermark moves to if the run completes; stays null when it must not move
+        Instant watermark;
+
+        try {
+            if (job.getMode() == ProcessingJob.Mode.DEAD_LETTERS) {
+                job.setTotal(deadLetterRepository.count());
+                submitChunks(job, futures, Long.MIN_VALUE, () -> true,
+                        after -> deadLetterRepository.findItemIdsAfter(after, PageRequest.ofSize(chunkSize)), id -> id);
+                // it only looked at a few items, so it says nothing about what changed since the watermark
+                watermark = null;
+            } else if (processingProperties.getPartitioning().isEnabled() && job.getMode() == ProcessingJob.Mode.FULL) {
+                watermark = processPartitioned(job, chunkSize, futures);
+            } else {
+                // without a watermark (the processor never completed a run) an incremental run is a full sweep
+                Instant since = job.getMode() == ProcessingJob.Mode.INCREMENTAL ? currentWatermark() : null;
+                if (since == null) {
+                    job.setTotal(itemRepository.count());
+                    submitChunks(job, futures, Long.MIN_VALUE, () -> true,
+                            after -> itemRepository.findIdsAfter(after, PageRequest.ofSize(chunkSize)), id -> id);
+                } else {
+                    // changes made after the run started are left to the next run, whose watermark is before them
+                    job.setTotal(itemRepository.countChangedBetween(since, runStartedAt));
+                    submitChunks(job, futures, new ItemChange(Long.MAX_VALUE, since), () -> true,
+                            after -> itemRepository.findChangedAfter(after.lastModified(), after.id(), runStartedAt,
+                                    PageRequest.ofSize(chunkSize)), ItemChange::id);
+                }
+                watermark = runStartedAt;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(job, runSample, ProcessingJob.State.FAILED, "Processing of items was interrupted");
+            return CompletableFuture.failedFuture(new RuntimeException("Processing of items was interrupted", e));
+        } catch (Exception e) {
+            finish(job, runSample, ProcessingJob.State.FAILED, e.getMessage());
+            return CompletableFuture.failedFuture(new RuntimeException("Failed to process items", e));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handle((result, ex) -> {
+                    if (ex != null) {
+                        finish(job, runSample, ProcessingJob.State.FAILED, ex.getMessage());
+                        throw new RuntimeException("Failed to process items", ex);
+                    }
+                    try {
+                        // a run only counts as completed (or cancelled) once the statuses of its chunks are written;
+                        // those of a failed run are left to the write-behind buffer's next flush
+                        writeBehind.flush();
+                    } catch (Exception e) {
+                        finish(job, runSample, ProcessingJob.State.FAILED, e.getMessage());
+                        throw new RuntimeException("Failed to write the processed items", e);
+                    }
+                    if (job.isCancelRequested()) {
+                        finish(job, runSample, ProcessingJob.State.CANCELLED, null);
+                    } else {
+                        try {
+                            if (watermark != null) {
+                                advanceWatermark(watermark.minus(processingProperties.getWatermarkOverlap()));
+                            }
+                        } catch (Exception e) {
+                            finish(job, runSample, ProcessingJob.State.FAILED, e.getMessage());
+                            throw new RuntimeException("Failed to save the processing watermark", e);
+                        }
+                        finish(job, runSample, ProcessingJob.State.COMPLETED, null);
+                    }
+                    List<Item> processedItems = new ArrayList<>();
+                    futures.forEach(future -> processedItems.addAll(future.join()));
+                    return processedItems;
+                });
+    }
+
+    // reads pages with "nextPage" (the last row read so far -> the next page) and submits the ids of every page
+    // ("idOf") as a chunk, with at most as many running as the concurrency limiter allows; "keepGoing" is asked
+    // before every chunk
+    // a row is an id for the sweeps that page by id, and the keyset position for the ones that don't
+    private <T> void submitChunks(ProcessingJob job, List<CompletableFuture<List<Item>>> futures,
+                                  T after, BooleanSupplier keepGoing, Function<T, List<T>> nextPage, Function<T, Long> idOf)
+            throws InterruptedException {
+        List<T> chunk;
+        while (!job.isCancelRequested() && !(chunk = nextPage.apply(after)).isEmpty()) {
+            concurrencyLimiter.acquire();
+            // the limit is shared by all runs, so a slot must never leak: it is given back right here unless
+            // a chunk was actually submitted, which gives it back when it completes
+            boolean submitted = false;
+            try {
+                // stop reading new chunks as soon as one of them has failed, the run fails anyway;
+                // the job may also have been cancelled while this thread was waiting for a free slot
+                if (job.isCancelRequested() || futures.stream().anyMatch(CompletableFuture::isCompletedExceptionally)
+                        || !keepGoing.getAsBoolean()) {
+                    break;
+                }
+
+                List<Long> ids = chunk.stream().map(idOf).toList();
+                futures.add(CompletableFuture.supplyAsync(() -> processChunk(job, ids), processingExecutor.getExecutor())
+                        .whenComplete((items, ex) -> concurrencyLimiter.release()));
+                submitted = true;
+            } finally {
+                if (!submitted) {
+                    concurrencyLimiter.release();
+                }
+            }
+            after = chunk.get(chunk.size() - 1);
+        }
+    }
+
+    // partitioned mode: instead of walking the whole table, this instance claims ranges of the shared sweep
+    // one at a time and processes each of them like a small sweep; the lease is renewed before every chunk
+    // and the range is only marked done once all its chunks were saved
+    // when nothing is left to claim but other instances still hold ranges, it waits, so it can take over the
+    // ranges of an instance that died once their leases expire; the run only ends when the whole sweep is done
+    // returns when the sweep started if this instance completed it, since only then the watermark may move
+    private Instant processPartitioned(ProcessingJob job, int chunkSize, List<CompletableFuture<List<Item>>> futures) throws InterruptedException {
+        ProcessingSweep sweep = partitionCoordinator.joinOrPlanSweep();
+        while (!job.isCancelRequested()) {
+            Optional<ItemRangeLease> claimed = partitionCoordinator.claimNext(sweep);
+            if (claimed.isEmpty()) {
+                if (!partitionCoordinator.hasUnfinishedRanges(sweep)) {
+                    break;
+                }
+                Thread.sleep(processingProperties.getPartitioning().getPollInterval().toMillis());
+                continue;
+            }
+
+            ItemRangeLease lease = claimed.get();
+            job.addTotal(itemRepository.countByIdBetween(lease.getFromId(), lease.getToId()));
+            int firstChunk = futures.size();
+            submitChunks(job, futures, lease.getFromId() - 1, () -> partitionCoordinator.renew(lease),
+                    after -> itemRepository.findIdsInRangeAfter(after, lease.getToId(), PageRequest.ofSize(chunkSize)), id -> id);
+            try {
+                CompletableFuture.allOf(futures.subList(firstChunk, futures.size()).toArray(new CompletableFuture[0])).join();
+            } catch (CompletionException e) {
+                // the run fails with this exception when its futures are combined; the range goes back to the pool
+                partitionCoordinator.release(lease);
+                return null;
+            }
+            if (job.isCancelRequested()) {
+                partitionCoordinator.release(lease);
+                return null;
+            }
+            try {
+                // the range only counts as done once its statuses are written, even with the write-behind buffer
+                writeBehind.flush();
+            } catch (RuntimeException e) {
+                partitionCoordinator.release(lease);
+                throw e;
+            }
+            // a no-op if the lease was lost in the meantime; the instance that took it over finishes the range
+            partitionCoordinator.complete(lease);
+        }
+        return !job.isCancelRequested() && partitionCoordinator.markCompleted(sweep) ? sweep.getStartedAt() : null;
+    }
+
+    public Instant currentWatermark() {
+        return watermarkRepository.findById(NAME).map(ProcessingWatermark::getWatermark).orElse(null);
+    }
+
+    // only completed runs get here: a failed or cancelled run may have skipped changed items, so the
+    // watermark stays where it was and the next incremental run looks at them again
+    // it never moves backwards, in case a full and an incremental run finish out of order
+    private void advanceWatermark(Instant watermark) {
+        transactionTemplate.executeWithoutResult(status -> {
+            ProcessingWatermark current = watermarkRepository.findById(NAME)
+                    .orElseGet(() -> new ProcessingWatermark(NAME, null, null));
+            if (current.getWatermark() == null || current.getWatermark().isBefore(watermark)) {
+                current.setWatermark(watermark);
+                current.setUpdatedAt(Instant.now());
+                watermarkRepository.save(current);
+            }
+        });
+    }
+
+    // loads, updates and saves one chunk of items in a single transaction;
+    // ids that were deleted in the meantime are simply not returned by findAllById and count as skipped
+    // the chunk timer covers loading, processing and writing the chunk, including the commit
+    // its duration and outcome are also the feedback of the concurrency limiter
+    // if the chunk fails, one bad item shouldn't cost the other items of the chunk (or the whole run),
+    // so the chunk is processed again item by item with retries, and only the items that still fail end
+    // up in the dead-letter table; the chunk itself only fails if that bookkeeping fails
+    private List<Item> processChunk(ProcessingJob job, List<Long> ids) {
+        Timer.Sample chunkSample = Timer.start(meterRegistry);
+        long start = System.nanoTime();
+        List<Item> processed;
+        Set<Long> failedIds = Set.of();
+        try {
+            ItemStatusAggregates.Delta delta = new ItemStatusAggregates.Delta();
+            processed = writeBehind.isEnabled() ? processBuffered(ids) : transactionTemplate.execute(status -> {
+                List<Item> items = itemRepository.findAllById(ids);
+                for (Item item : items) {
+                    String before = item.getStatus();
+                    meterRegistry.timer("items.processing.item").record(() -> processItem(item));
+                    delta.move(before, item.getStatus());
+                }
+                return itemRepository.saveAll(items);
+            });
+            statusAggregates.apply(delta);
+            chunkSample.stop(meterRegistry.timer("items.processing.chunk", "outcome", "success"));
+            concurrencyLimiter.onChunk(System.nanoTime() - start, processed.size(), true);
+            job.recordSkipped(ids.size() - processed.size());
+            meterRegistry.counter("items.skipped").increment(ids.size() - processed.size());
+        } catch (Exception e) {
+            chunkSample.stop(meterRegistry.timer("items.processing.chunk", "outcome", "failure"));
+            concurrencyLimiter.onChunk(System.nanoTime() - start, ids.size(), false);
+            processed = new ArrayList<>();
+            failedIds = new HashSet<>();
+            processIndividually(job, ids, processed, failedIds);
+        }
+
+        meterRegistry.counter("items.processed").increment(processed.size());
+        itemCache.evictAll(ids);
+        if (job.getMode() == ProcessingJob.Mode.DEAD_LETTERS) {
+            // processed or gone, either way nothing is left to retry for these
+            List<Long> resolved = ids.stream().filter(not(failedIds::contains)).toList();
+            if (!resolved.isEmpty()) {
+                transactionTemplate.execute(status -> deadLetterRepository.deleteByItemIds(resolved));
+            }
+        }
+        job.recordProcessed(processed.size());
+        job.notifyChunkProcessed(processed);
+        return job.isCollectResults() ? processed : List.of();
+    }
+
+    // with the write-behind buffer: the items are read outside of a transaction (so they come back detached and
+    // nothing is written at commit), processed, and handed to the buffer, which writes them later
+    // the status counters are moved right away; if the buffer later has to drop an entry, it marks them stale
+    // an item that kept its status has nothing to write, so only the changed ones go to the buffer, and a
+    // dropped entry is always a real conflict
+    private List<Item> processBuffered(List<Long> ids) {
+        List<Item> items = itemRepository.findAllById(ids);
+        List<Item> changed = new ArrayList<>();
+        ItemStatusAggregates.Delta delta = new ItemStatusAggregates.Delta();
+        for (Item item : items) {
+            String before = item.getStatus();
+            meterRegistry.timer("items.processing.item").record(() -> processItem(item));
+            delta.move(before, item.getStatus());
+            if (!Objects.equals(before, item.getStatus())) {
+                changed.add(item);
+            }
+        }
+        writeBehind.add(changed);
+        statusAggregates.apply(delta);
+        return items;
+    }
+
+    // every item in its own transaction, each retried with exponential backoff; the backoff sleeps on the
+    // chunk's thread, which is fine since this only happens once a chunk has already failed
+    private void processIndividually(ProcessingJob job, List<Long> ids, List<Item> processed, Set<Long> failedIds) {
+        ItemProcessingProperties.Retry retry = processingProperties.getRetry();
+        for (Long id : ids) {
+            // stays null until an attempt succeeds; empty if the item was deleted in the meantime
+            Optional<Item> outcome = null;
+            Exception lastFailure = null;
+            long backoffMillis = retry.getInitialBackoff().toMillis();
+            for (int attempt = 1; attempt <= retry.getMaxAttempts(); attempt++) {
+                try {
+                    ItemStatusAggregates.Delta delta = new ItemStatusAggregates.Delta();
+                    outcome = transactionTemplate.execute(status -> itemRepository.findById(id).map(item -> {
+                        String before = item.getStatus();
+                        meterRegistry.timer("items.processing.item").record(() -> processItem(item));
+                        delta.move(before, item.getStatus());
+                        return itemRepository.save(item);
+                    }));
+                    statusAggregates.apply(delta);
+                    break;
+                } catch (Exception e) {
+                    lastFailure = e;
+                    if (attempt < retry.getMaxAttempts()) {
+                        meterRegistry.counter("items.processing.retries").increment();
+                        sleep(backoffMillis);
+                        backoffMillis = Math.min((long) (backoffMillis * retry.getMultiplier()), retry.getMaxBackoff().toMillis());
+                    }
+                }
+            }
+
+            if (outcome == null) {
+                deadLetter(id, lastFailure, retry.getMaxAttempts());
+                failedIds.add(id);
+                job.recordFailed(1);
+                meterRegistry.counter("items.failed").increment();
+            } else if (outcome.isEmpty()) {
+                job.recordSkipped(1);
+                meterRegistry.counter("items.skipped").increment();
+            } else {
+                processed.add(outcome.get());
+            }
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            // shutting down: give up on the chunk instead of retrying the rest of it without waiting
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Processing of items was interrupted", e);
+        }
+    }
+
+    private void deadLetter(Long itemId, Exception failure, int attempts) {
+        // the innermost exception says what went wrong, the outer ones (e.g. "Could not commit JPA transaction") don't
+        Throwable root = NestedExceptionUtils.getMostSpecificCause(failure);
+        String cause = root.getClass().getName() + ": " + root.getMessage();
+        Instant now = Instant.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            ItemDeadLetter deadLetter = deadLetterRepository.findByItemId(itemId).orElseGet(() -> new ItemDeadLetter(itemId));
+            if (deadLetter.getFirstFailedAt() == null) {
+                deadLetter.setFirstFailedAt(now);
+            }
+            deadLetter.setLastFailedAt(now);
+            deadLetter.setAttempts(deadLetter.getAttempts() + attempts);
+            deadLetter.setCause(cause.length() > 1000 ? cause.substring(0, 1000) : cause);
+            deadLetterRepository.save(deadLetter);
+        });
+    }
+
+    // the actual per-item processing logic; everything around it is loading and saving
+    private void processItem(Item item) {
+        item.setStatus(PROCESSED);
+    }
+
+    private void finish(ProcessingJob job, Timer.Sample runSample, ProcessingJob.State state, String error) {
+        job.finish(state, error);
+        runSample.stop(meterRegistry.timer("items.processing.run", "outcome", state.name().toLowerCase()));
+    }
+}
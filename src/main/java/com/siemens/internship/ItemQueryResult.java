@@ -0,0 +1,13 @@
+package com.siemens.internship;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+// one page of a filtered query, with the total number of matches from the count query
+public record ItemQueryResult(List<Item> items, int page, int size, long totalElements, int totalPages) {
+
+    public static ItemQueryResult of(Page<Item> page) {
+        return new ItemQueryResult(page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements(), page.getTotalPages());
+    }
+}
@@ -0,0 +1,41 @@
+package com.siemens.internship;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// one range of item ids of a partitioned sweep (see ItemPartitionCoordinator)
+// a range is owned by at most one instance at a time: "owner" holds the node id of that instance and
+// "leaseExpiresAt" how long the claim is valid without being renewed; once it has expired, any other
+// instance may take the range over, which is how the work of an instance that died gets reassigned
+@Entity
+@Table(indexes = @Index(name = "idx_item_range_lease_sweep", columnList = "sweepId"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class ItemRangeLease {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_range_lease_seq")
+    @SequenceGenerator(name = "item_range_lease_seq", sequenceName = "item_range_lease_seq", allocationSize = 50)
+    private Long id;
+
+    private String sweepId;
+
+    // inclusive bounds
+    private Long fromId;
+    private Long toId;
+
+    private String owner;
+    private Instant leaseExpiresAt;
+
+    private boolean done;
+
+    public ItemRangeLease(String sweepId, Long fromId, Long toId) {
+        this.sweepId = sweepId;
+        this.fromId = fromId;
+        this.toId = toId;
+    }
+}
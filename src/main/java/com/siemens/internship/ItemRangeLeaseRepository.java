@@ -0,0 +1,45 @@
+package com.siemens.internship;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+// every change of ownership is a conditional UPDATE: it only matches the row while the condition still
+// holds, so when two instances race for the same range exactly one of them gets 1 back
+public interface ItemRangeLeaseRepository extends JpaRepository<ItemRangeLease, Long> {
+
+    // ranges that are not done and not held by a live lease, lowest ids first
+    @Query("SELECT l FROM ItemRangeLease l WHERE l.sweepId = :sweepId AND l.done = false " +
+            "AND (l.owner IS NULL OR l.leaseExpiresAt < :now) ORDER BY l.fromId")
+    List<ItemRangeLease> findClaimable(@Param("sweepId") String sweepId, @Param("now") Instant now, Pageable pageable);
+
+    long countBySweepIdAndDoneFalse(String sweepId);
+
+    @Modifying
+    @Query("UPDATE ItemRangeLease l SET l.owner = :owner, l.leaseExpiresAt = :expiresAt WHERE l.id = :id " +
+            "AND l.done = false AND (l.owner IS NULL OR l.leaseExpiresAt < :now)")
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("expiresAt") Instant expiresAt,
+              @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE ItemRangeLease l SET l.leaseExpiresAt = :expiresAt WHERE l.id = :id AND l.owner = :owner AND l.done = false")
+    int renew(@Param("id") Long id, @Param("owner") String owner, @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query("UPDATE ItemRangeLease l SET l.done = true, l.owner = NULL, l.leaseExpiresAt = NULL " +
+            "WHERE l.id = :id AND l.owner = :owner")
+    int complete(@Param("id") Long id, @Param("owner") String owner);
+
+    @Modifying
+    @Query("UPDATE ItemRangeLease l SET l.owner = NULL, l.leaseExpiresAt = NULL WHERE l.id = :id AND l.owner = :owner")
+    int release(@Param("id") Long id, @Param("owner") String owner);
+
+    @Modifying
+    @Query("DELETE FROM ItemRangeLease l WHERE l.sweepId <> :sweepId")
+    int deleteOtherSweeps(@Param("sweepId") String sweepId);
+}
@@ -1,11 +1,147 @@
 package com.siemens.internship;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
     @Query("SELECT id FROM Item")
     List<Long> findAllIds();
+
+    // filtered queries backed by the status and email indexes; the Page variants also run a count query
+    Page<Item> findByStatus(String status, Pageable pageable);
+
+    Page<Item> findByStatusNot(String status, Pageable pageable);
+
+    Page<Item> findByEmail(String email, Pageable pageable);
+
+    Page<Item> findByStatusAndEmail(String status, String email, Pageable pageable);
+
+    Page<Item> findByStatusNotAndEmail(String status, String email, Pageable pageable);
+
+    long countByStatus(String status);
+
+    long countByStatusNot(String status);
+
+    long countByEmail(String email);
+
+    long countByStatusAndEmail(String status, String email);
+
+    long countByStatusNotAndEmail(String status, String email);
+
+    // keyset pagination over the ids: returns the next page of ids strictly greater than "after",
+    // so reading page N costs the same as reading page 1 (no OFFSET scan)
+    @Query("SELECT i.id FROM Item i WHERE i.id > :after ORDER BY i.id")
+    List<Long> findIdsAfter(@Param("after") Long after, Pageable pageable);
+
+    // the same, limited to the ids up to "to"; used to walk one range of a partitioned sweep
+    @Query("SELECT i.id FROM Item i WHERE i.id > :after AND i.id <= :to ORDER BY i.id")
+    List<Long> findIdsInRangeAfter(@Param("after") Long after, @Param("to") Long to, Pageable pageable);
+
+    long countByIdBetween(Long from, Long to);
+
+    // incremental processing: the next page of items changed up to "until", in (lastModified, id) order,
+    // after the position (lastModified, id) of the last one read; the first page starts at (watermark, MAX)
+    // the order is the one of idx_item_last_modified_id, so every page is a range scan of that index, and a
+    // run reads the changed rows only, however large the table is
+    @Query("SELECT new com.siemens.internship.ItemChange(i.id, i.lastModified) FROM Item i " +
+            "WHERE (i.lastModified > :lastModified OR (i.lastModified = :lastModified AND i.id > :id)) " +
+            "AND i.lastModified <= :until ORDER BY i.lastModified, i.id")
+    List<ItemChange> findChangedAfter(@Param("lastModified") Instant lastModified, @Param("id") Long id,
+                                      @Param("until") Instant until, Pageable pageable);
+
+    @Query("SELECT COUNT(i) FROM Item i WHERE i.lastModified > :since AND i.lastModified <= :until")
+    long countChangedBetween(@Param("since") Instant since, @Param("until") Instant until);
+
+    // the whole table as read-only projections, for GET /api/items
+    @Query("SELECT new com.siemens.internship.ItemView(i.id, i.name, i.description, i.status, i.email, " +
+            "i.version, i.lastModified) FROM Item i ORDER BY i.id")
+    List<ItemView> findAllViews();
+
+    // the hits of a search, in no particular order (ItemService puts them back in the order of their scores)
+    @Query("SELECT new com.siemens.internship.ItemView(i.id, i.name, i.description, i.status, i.email, " +
+            "i.version, i.lastModified) FROM Item i WHERE i.id IN :ids")
+    List<ItemView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // keyset pagination over the items themselves, used by GET /api/items?limit=..&after=..
+    @Query("SELECT i FROM Item i WHERE i.id > :after ORDER BY i.id")
+    List<Item> findPageAfter(@Param("after") Long after, Pageable pageable);
+
+    // reads the whole table through a database cursor instead of materializing it as a list;
+    // has to be consumed inside a transaction and closed afterwards
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT i FROM Item i ORDER BY i.id")
+    Stream<Item> streamAll();
+
+    // the same cursor over projections, for building the search index; nothing ends up in the persistence context
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.siemens.internship.ItemView(i.id, i.name, i.description, i.status, i.email, " +
+            "i.version, i.lastModified) FROM Item i ORDER BY i.id")
+    Stream<ItemView> streamAllViews();
+
+    @Query("SELECT new com.siemens.internship.IdRange(MIN(i.id), MAX(i.id)) FROM Item i")
+    IdRange findIdRange();
+
+    // seeds and corrects the in-memory counters of ItemStatusAggregates
+    @Query("SELECT new com.siemens.internship.StatusCount(i.status, COUNT(i)) FROM Item i GROUP BY i.status")
+    List<StatusCount> countGroupedByStatus();
+
+    // set-based status transitions: one UPDATE statement changes every matching row directly in the
+    // database and only returns the number of affected rows, no entity is loaded
+    // rows that already have the target status are left alone, so the counts only include real transitions
+    // both have to run inside a transaction
+    @Modifying
+    @Query("UPDATE Item i SET i.status = :target, i.version = COALESCE(i.version, 0) + 1 " +
+            "WHERE i.id BETWEEN :fromId AND :toId AND (i.status IS NULL OR i.status <> :target)")
+    int updateStatusInRange(@Param("target") String target, @Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Modifying
+    @Query("UPDATE Item i SET i.status = :target, i.version = COALESCE(i.version, 0) + 1 " +
+            "WHERE i.id BETWEEN :fromId AND :toId AND i.status = :source")
+    int transitionStatusInRange(@Param("source") String source, @Param("target") String target,
+                                @Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // the write of ItemWriteBehindBuffer: the ids that were read with the same version and got the same status
+    // are written with one statement; a row whose version moved on since (a client changed it) is left alone
+    @Modifying
+    @Query("UPDATE Item i SET i.status = :status, i.version = COALESCE(i.version, 0) + 1 " +
+            "WHERE i.id IN :ids AND COALESCE(i.version, 0) = :version AND (i.status IS NULL OR i.status <> :status)")
+    int updateStatusIfVersion(@Param("ids") Collection<Long> ids, @Param("status") String status, @Param("version") long version);
+
+    // single-statement update and delete by id, without reading the row first: the statement runs inside a
+    // SELECT over H2's OLD TABLE (what RETURNING is in other databases), which hands back the version and status
+    // the row had before; no row back means no item with that id (and version), one row means it was written
+    // the "AndVersion" variants only match the row if it still has the version the client saw
+    @Query(value = "SELECT version, status FROM OLD TABLE (UPDATE item SET name = :name, description = :description, " +
+            "status = :status, email = :email, last_modified = :now, version = COALESCE(version, 0) + 1 " +
+            "WHERE id = :id)", nativeQuery = true)
+    List<ItemState> updateById(@Param("id") Long id, @Param("name") String name, @Param("description") String description,
+                               @Param("status") String status, @Param("email") String email, @Param("now") Instant now);
+
+    @Query(value = "SELECT version, status FROM OLD TABLE (UPDATE item SET name = :name, description = :description, " +
+            "status = :status, email = :email, last_modified = :now, version = COALESCE(version, 0) + 1 " +
+            "WHERE id = :id AND version = :version)", nativeQuery = true)
+    List<ItemState> updateByIdAndVersion(@Param("id") Long id, @Param("version") Long version, @Param("name") String name,
+                                         @Param("description") String description, @Param("status") String status,
+                                         @Param("email") String email, @Param("now") Instant now);
+
+    @Query(value = "SELECT version, status FROM OLD TABLE (DELETE FROM item WHERE id = :id)", nativeQuery = true)
+    List<ItemState> deleteItemById(@Param("id") Long id);
+
+    @Query(value = "SELECT version, status FROM OLD TABLE (DELETE FROM item WHERE id = :id AND version = :version)", nativeQuery = true)
+    List<ItemState> deleteItemByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
 }
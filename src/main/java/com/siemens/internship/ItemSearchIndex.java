@@ -0,0 +1,339 @@
+package com.siemens.internship;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// in-process inverted index over the words of name and description, behind GET /api/items/search
+// a LIKE '%word%' query can't use an index and reads the whole table for every search; here a search only
+// touches the posting lists of its words
+// every posting list is a pair of primitive arrays sorted by id (ids, and the weight of the word in that
+// item), so an entry costs 12 bytes instead of a boxed Long in a HashSet; ids only grow, so adding a new
+// item is an append
+// the index is built once at startup with a streamed scan of the table, and then kept up to date by
+// ItemSearchListener (entity writes) and by ItemService (the single-statement updates and deletes, which
+// don't go through the entities)
+@Component
+public class ItemSearchIndex implements ApplicationRunner, MeterBinder {
+
+    // a word in the name says more about the item than one in the description
+    static final int NAME_WEIGHT = 2;
+    static final int DESCRIPTION_WEIGHT = 1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    // the words of every indexed item, so its old postings can be removed when it changes
+    private final Map<Long, String[]> itemWords = new HashMap<>();
+    // ids written while the startup scan was running: the scan may have read them before the change
+    private Set<Long> changedDuringBuild = new HashSet<>();
+    private volatile boolean ready;
+
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public record Match(Long id, double score) {
+    }
+
+    public record Matches(long total, List<Match> page) {
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    // reads the id, name and description of every item through a database cursor, without loading entities
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            postings.clear();
+            itemWords.clear();
+            changedDuringBuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<ItemView> items = itemRepository.streamAllViews()) {
+                items.forEach(item -> {
+                    lock.writeLock().lock();
+                    try {
+                        if (!changedDuringBuild.contains(item.id())) {
+                            put(item.id(), item.name(), item.description());
+                        }
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                });
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            changedDuringBuild = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void update(Long id, String name, String description) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringBuild != null) {
+                changedDuringBuild.add(id);
+            }
+            put(id, name, description);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringBuild != null) {
+                changedDuringBuild.add(id);
+            }
+            removeWords(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // items containing every word of the query, best first: each word adds its weight in the item (a word
+    // in the name counts NAME_WEIGHT times per occurrence) times how rare the word is (BM25's idf), so
+    // matching a rare word counts more than matching a word that most items have; ties go to the lower id
+    public Matches search(String query, int page, int size) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Set<String> words = new HashSet<>(tokenize(query));
+            lock.readLock().lock();
+            try {
+                List<Postings> lists = new ArrayList<>(words.size());
+                for (String word : words) {
+                    Postings list = postings.get(word);
+                    if (list == null) {
+                        return new Matches(0, List.of());
+                    }
+                    lists.add(list);
+                }
+                if (lists.isEmpty()) {
+                    return new Matches(0, List.of());
+                }
+                lists.sort(Comparator.comparingInt(list -> list.size));
+                return rank(lists, page, size);
+            } finally {
+                lock.readLock().unlock();
+            }
+        } finally {
+            sample.stop(meterRegistry.timer("items.search.query"));
+        }
+    }
+
+    // walks the shortest list and looks every id up in the others (binary search)
+    private Matches rank(List<Postings> lists, int page, int size) {
+        int items = itemWords.size();
+        double[] idf = new double[lists.size()];
+        for (int i = 0; i < lists.size(); i++) {
+            int df = lists.get(i).size;
+            idf[i] = Math.log(1 + (items - df + 0.5) / (df + 0.5));
+        }
+
+        Postings shortest = lists.get(0);
+        List<Match> matches = new ArrayList<>();
+        candidates:
+        for (int k = 0; k < shortest.size; k++) {
+            long id = shortest.ids[k];
+            double score = shortest.weights[k] * idf[0];
+            for (int i = 1; i < lists.size(); i++) {
+                Postings list = lists.get(i);
+                int index = Arrays.binarySearch(list.ids, 0, list.size, id);
+                if (index < 0) {
+                    continue candidates;
+                }
+                score += list.weights[index] * idf[i];
+            }
+            matches.add(new Match(id, score));
+        }
+
+        matches.sort(Comparator.comparingDouble(Match::score).reversed().thenComparing(Match::id));
+        int from = (int) Math.min((long) page * size, matches.size());
+        int to = Math.min(from + size, matches.size());
+        return new Matches(matches.size(), List.copyOf(matches.subList(from, to)));
+    }
+
+    // must be called with the write lock held
+    private void put(Long id, String name, String description) {
+        removeWords(id);
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String word : tokenize(name)) {
+            weights.merge(word, NAME_WEIGHT, Integer::sum);
+        }
+        for (String word : tokenize(description)) {
+            weights.merge(word, DESCRIPTION_WEIGHT, Integer::sum);
+        }
+        if (weights.isEmpty()) {
+            return;
+        }
+        weights.forEach((word, weight) -> postings.computeIfAbsent(word, key -> new Postings()).put(id, weight));
+        itemWords.put(id, weights.keySet().toArray(new String[0]));
+    }
+
+    // must be called with the write lock held
+    private void removeWords(Long id) {
+        String[] words = itemWords.remove(id);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            Postings list = postings.get(word);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(word);
+            }
+        }
+    }
+
+    // lower-cased runs of letters and digits; everything else separates words
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean partOfWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (partOfWord && start < 0) {
+                start = i;
+            } else if (!partOfWord && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    public int getWordCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getItemCount() {
+        lock.readLock().lock();
+        try {
+            return itemWords.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // rough size of the index on the heap: the arrays of the posting lists, the words, and the per-item word
+    // lists, plus the usual per-object and per-map-entry overhead of a 64-bit JVM with compressed pointers
+    public long getEstimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                Postings list = entry.getValue();
+                bytes += 32 + 40 + 2L * entry.getKey().length() + 24 + 16 + 8L * list.ids.length + 16 + 4L * list.weights.length;
+            }
+            for (String[] words : itemWords.values()) {
+                bytes += 32 + 16 + 16 + 4L * words.length;
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("items.search.index.words", this, ItemSearchIndex::getWordCount)
+                .description("Distinct words in the search index")
+                .register(registry);
+        Gauge.builder("items.search.index.items", this, ItemSearchIndex::getItemCount)
+                .description("Items in the search index")
+                .register(registry);
+        Gauge.builder("items.search.index.memory", this, ItemSearchIndex::getEstimatedBytes)
+                .baseUnit("bytes")
+                .description("Estimated heap used by the search index")
+                .register(registry);
+    }
+
+    // ids in ascending order with the weight of the word in each item; grows like an ArrayList
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int[] weights = new int[4];
+        private int size;
+
+        void put(long id, int weight) {
+            // new items have the highest id so far, which makes this an append
+            int index = size > 0 && ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                weights[index] = weight;
+                return;
+            }
+            int insertAt = -(index + 1);
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            System.arraycopy(weights, insertAt, weights, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            weights[insertAt] = weight;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            System.arraycopy(weights, index + 1, weights, index, size - index - 1);
+            size--;
+            // give memory back once a list has shrunk to a quarter of its capacity
+            if (size > 4 && size * 4 < ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.siemens.internship;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// JPA entity listener of Item (see @EntityListeners there) that keeps ItemSearchIndex up to date with every
+// insert, update and delete that goes through an entity; Spring Boot lets Hibernate take entity listeners
+// from the application context, so this is a normal bean
+// the events fire when the persistence context is flushed, before the transaction commits, so the change
+// is only applied to the index once the transaction has committed; a rolled back write never shows up
+// the index comes through an ObjectProvider because Hibernate creates its listeners while the
+// EntityManagerFactory is built, before the repositories the index depends on can exist
+@Component
+public class ItemSearchListener {
+
+    private final ObjectProvider<ItemSearchIndex> searchIndex;
+
+    public ItemSearchListener(ObjectProvider<ItemSearchIndex> searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    void saved(Item item) {
+        // the entity may still change before the commit, the index gets the values of this write
+        Long id = item.getId();
+        String name = item.getName();
+        String description = item.getDescription();
+        afterCommit(() -> searchIndex.getObject().update(id, name, description));
+    }
+
+    @PostRemove
+    void removed(Item item) {
+        Long id = item.getId();
+        afterCommit(() -> searchIndex.getObject().remove(id));
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
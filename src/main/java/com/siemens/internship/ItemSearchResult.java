@@ -0,0 +1,10 @@
+package com.siemens.internship;
+
+import java.util.List;
+
+// one page of GET /api/items/search, best matches first; "total" is the number of matching items on all pages
+public record ItemSearchResult(String query, long total, int page, int size, List<Hit> hits) {
+
+    public record Hit(ItemView item, double score) {
+    }
+}
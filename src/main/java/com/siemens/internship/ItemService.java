@@ -1,37 +1,433 @@
 package com.siemens.internship;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 public class ItemService {
     @Autowired
     private ItemRepository itemRepository;
-    private final List<Item> processedItems = new CopyOnWriteArrayList<>();
-    private final AtomicInteger processedCount = new AtomicInteger(0);
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ItemCache itemCache;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private ItemProcessor itemProcessor;
+    @Autowired
+    private ItemProcessingExecutor processingExecutor;
+    @Autowired
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    @Autowired
+    private ItemDeadLetterRepository deadLetterRepository;
+    @Autowired
+    private ItemSearchIndex searchIndex;
+    @Autowired
+    private ItemStatusAggregates statusAggregates;
+
+    // the run currently in flight for each kind of request (collecting results or not, and the mode)
+    private final Map<RunKind, ProcessingJob> inFlightRuns = new ConcurrentHashMap<>();
+
+    private record RunKind(boolean collectResults, ProcessingJob.Mode mode) {
+    }
 
+    // the columns a caller can ask for with "fields"; everything else is rejected before it reaches a query
+    public static final List<String> SELECTABLE_FIELDS = List.of("id", "name", "description", "status", "email", "version", "lastModified");
+
+    // read-only transactions: Hibernate loads the entities as read-only (no dirty-checking snapshots)
+    // and never flushes, since these methods don't change anything
+    @Transactional(readOnly = true)
     public List<Item> findAll() {
         return itemRepository.findAll();
     }
 
+    // the whole table as projections instead of entities, see ItemView
+    @Transactional(readOnly = true)
+    public List<ItemView> findAllViews() {
+        return itemRepository.findAllViews();
+    }
+
+    // keyset (seek) pagination on the id: the query always starts at "after" using the primary key index,
+    // so every page costs the same no matter how deep into the table it is
+    // one extra row is read to know whether there is a next page without a count query
+    @Transactional(readOnly = true)
+    public ItemPage<Item> findPage(Long after, int limit) {
+        List<Item> items = itemRepository.findPageAfter(after != null ? after : Long.MIN_VALUE, PageRequest.ofSize(limit + 1));
+        if (items.size() <= limit) {
+            return new ItemPage<>(items, null);
+        }
+        List<Item> page = items.subList(0, limit);
+        return new ItemPage<>(page, page.get(limit - 1).getId());
+    }
+
+    // only the requested columns (a subset of SELECTABLE_FIELDS), in the requested order, one map per item;
+    // the SELECT list only contains those columns, so e.g. fields=id,status never reads names or descriptions
+    // with a limit it is a keyset page like findPage (the id is read for the cursor even if not requested),
+    // without one it is the whole table
+    @Transactional(readOnly = true)
+    public ItemPage<Map<String, Object>> findFields(List<String> fields, Long after, Integer limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<Item> root = query.from(Item.class);
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(root.get("id").alias("id"));
+        fields.stream().filter(field -> !field.equals("id")).forEach(field -> selections.add(root.get(field).alias(field)));
+        query.multiselect(selections)
+                .where(builder.greaterThan(root.get("id"), after != null ? after : Long.MIN_VALUE))
+                .orderBy(builder.asc(root.get("id")));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (limit != null) {
+            typedQuery.setMaxResults(limit + 1);
+        }
+        List<Tuple> rows = typedQuery.getResultList();
+
+        Long nextCursor = null;
+        if (limit != null && rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            nextCursor = rows.get(limit - 1).get("id", Long.class);
+        }
+        List<Map<String, Object>> items = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            fields.forEach(field -> item.put(field, row.get(field)));
+            items.add(item);
+        }
+        return new ItemPage<>(items, nextCursor);
+    }
+
+    // items per status and the processing backlog, from the in-memory counters (see ItemStatusAggregates);
+    // empty until the counters were seeded
+    public Optional<ItemAggregates> getAggregates() {
+        return statusAggregates.isReady() ? Optional.of(statusAggregates.getAggregates()) : Optional.empty();
+    }
+
+    // false while the index is still being built at startup
+    public boolean isSearchReady() {
+        return searchIndex.isReady();
+    }
+
+    // ranked full-text search over name and description (see ItemSearchIndex); the index only returns the ids of
+    // the requested page, and just those items are read, in one query
+    @Transactional(readOnly = true)
+    public ItemSearchResult search(String query, int page, int size) {
+        ItemSearchIndex.Matches matches = searchIndex.search(query, page, size);
+        List<Long> ids = matches.page().stream().map(ItemSearchIndex.Match::id).toList();
+        Map<Long, ItemView> views = new HashMap<>();
+        if (!ids.isEmpty()) {
+            itemRepository.findViewsByIdIn(ids).forEach(view -> views.put(view.id(), view));
+        }
+        // an item deleted since the index was searched is simply left out
+        List<ItemSearchResult.Hit> hits = matches.page().stream()
+                .filter(match -> views.containsKey(match.id()))
+                .map(match -> new ItemSearchResult.Hit(views.get(match.id()), match.score()))
+                .toList();
+        return new ItemSearchResult(query, matches.total(), page, size, hits);
+    }
+
+    // filtered, paged query that uses the status/email indexes instead of loading the whole table
+    @Transactional(readOnly = true)
+    public ItemQueryResult findByFilter(ItemFilter filter, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id"));
+        Page<Item> result;
+        if (filter.email() == null) {
+            result = filter.status() != null
+                    ? itemRepository.findByStatus(filter.status(), pageable)
+                    : itemRepository.findByStatusNot(filter.statusNot(), pageable);
+        } else if (filter.status() != null) {
+            result = itemRepository.findByStatusAndEmail(filter.status(), filter.email(), pageable);
+        } else if (filter.statusNot() != null) {
+            result = itemRepository.findByStatusNotAndEmail(filter.statusNot(), filter.email(), pageable);
+        } else {
+            result = itemRepository.findByEmail(filter.email(), pageable);
+        }
+        return ItemQueryResult.of(result);
+    }
+
+    // only the count query of findByFilter, for dashboards that just need the number
+    @Transactional(readOnly = true)
+    public long countByFilter(ItemFilter filter) {
+        if (filter.email() == null) {
+            return filter.status() != null
+                    ? itemRepository.countByStatus(filter.status())
+                    : itemRepository.countByStatusNot(filter.statusNot());
+        } else if (filter.status() != null) {
+            return itemRepository.countByStatusAndEmail(filter.status(), filter.email());
+        } else if (filter.statusNot() != null) {
+            return itemRepository.countByStatusNotAndEmail(filter.statusNot(), filter.email());
+        }
+        return itemRepository.countByEmail(filter.email());
+    }
+
+    // hands every item to the consumer while it is being read from the database cursor;
+    // each item is detached after it was consumed so the persistence context doesn't grow with the table
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Item> consumer) {
+        try (Stream<Item> items = itemRepository.streamAll()) {
+            items.forEach(item -> {
+                consumer.accept(item);
+                entityManager.detach(item);
+            });
+        }
+    }
+
+    // served from the in-process cache when possible; a miss reads the database and fills the cache
     public Optional<Item> findById(Long id) {
-        return itemRepository.findById(id);
+        return itemCache.getOrLoad(id, key -> measured("findById", () -> itemRepository.findById(key)));
     }
 
+    // every write evicts the cached copy after the database was changed, so the next lookup reloads it
+    // every client write also stamps lastModified, which is what incremental processing looks at
+    // the status counters only know the old status of a new item (none), an update through save marks them stale
     public Item save(Item item) {
-        return itemRepository.save(item);
+        boolean created = item.getId() == null;
+        item.setLastModified(Instant.now());
+        Item saved = measured("save", () -> itemRepository.save(item));
+        itemCache.evict(saved.getId());
+        if (created) {
+            statusAggregates.move(null, saved.getStatus(), 1);
+        } else {
+            statusAggregates.markStale();
+        }
+        return saved;
+    }
+
+    public enum WriteResult { DONE, NOT_FOUND, VERSION_MISMATCH }
+
+    // the outcome of updateById; "item" is the row as it was written (new version, lastModified), only when DONE
+    public record UpdateResult(WriteResult result, Item item) {
+    }
+
+    // updates the row with one UPDATE statement, instead of findById + save (which loads the entity and writes
+    // it back through dirty checking); the statement hands back the version and status the row had, so the
+    // response carries the version it wrote (with or without an expected version) and the status counters move
+    // from the old status instead of being recounted
+    // only when nothing was written, and only for a conditional update, one more query tells 404 from 412
+    public UpdateResult updateById(Long id, Item item, Long expectedVersion) {
+        // the column keeps microseconds, so the response carries the value a later GET reads back
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        List<ItemState> previous = measured("update", () -> transactionTemplate.execute(status -> expectedVersion == null
+                ? itemRepository.updateById(id, item.getName(), item.getDescription(), item.getStatus(), item.getEmail(), now)
+                : itemRepository.updateByIdAndVersion(id, expectedVersion, item.getName(), item.getDescription(),
+                        item.getStatus(), item.getEmail(), now)));
+        itemCache.evict(id);
+        if (previous.isEmpty()) {
+            return new UpdateResult(writeFailure(id, expectedVersion), null);
+        }
+        ItemState before = previous.get(0);
+        // the UPDATE statement bypasses the entity listener, so the search index is told here
+        searchIndex.update(id, item.getName(), item.getDescription());
+        statusAggregates.move(before.getStatus(), item.getStatus(), 1);
+        // the UPDATE sets every one of these columns
+        long version = (before.getVersion() != null ? before.getVersion() : 0) + 1;
+        return new UpdateResult(WriteResult.DONE, new Item(id, item.getName(), item.getDescription(), item.getStatus(),
+                item.getEmail(), version, now));
+    }
+
+    // deletes the item with one DELETE statement, see updateById
+    public WriteResult deleteById(Long id, Long expectedVersion) {
+        List<ItemState> previous = measured("delete", () -> transactionTemplate.execute(status -> expectedVersion == null
+                ? itemRepository.deleteItemById(id)
+                : itemRepository.deleteItemByIdAndVersion(id, expectedVersion)));
+        itemCache.evict(id);
+        if (previous.isEmpty()) {
+            return writeFailure(id, expectedVersion);
+        }
+        searchIndex.remove(id);
+        statusAggregates.move(previous.get(0).getStatus(), null, 1);
+        return WriteResult.DONE;
+    }
+
+    private WriteResult writeFailure(Long id, Long expectedVersion) {
+        return expectedVersion != null && itemRepository.existsById(id) ? WriteResult.VERSION_MISMATCH : WriteResult.NOT_FOUND;
+    }
+
+    // interactive database calls report their latency to the concurrency limiter, so processing backs off
+    // when the API is getting slow (see AdaptiveConcurrencyLimiter); "operation" names the kind of call, which
+    // has its own normal latency
+    private <T> T measured(String operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            concurrencyLimiter.onRequest(operation, System.nanoTime() - start);
+        }
+    }
+
+    // bulk create: every element is validated first, then all valid ones are inserted with one saveAll in a
+    // single transaction; with the pooled id sequence and hibernate.jdbc.batch_size, that is a handful of
+    // sequence calls plus batched INSERTs instead of a request and a transaction per item
+    // if the batch can't be written as a whole (e.g. one row breaks a database constraint), the valid elements
+    // are retried one by one, so only the bad row fails and the others are still created
+    public BatchResult createAll(List<Item> items) {
+        BatchResult.ItemResult[] results = new BatchResult.ItemResult[items.size()];
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            Map<String, String> errors = validate(items.get(i));
+            if (errors.isEmpty()) {
+                valid.add(i);
+            } else {
+                results[i] = new BatchResult.ItemResult(i, null, HttpStatus.BAD_REQUEST.value(), errors);
+            }
+        }
+
+        List<Item> toInsert = valid.stream().map(items::get).toList();
+        // ids and versions in the request are ignored, just like for POST /api/items
+        Instant now = Instant.now();
+        toInsert.forEach(item -> {
+            item.setId(null);
+            item.setVersion(null);
+            item.setLastModified(now);
+        });
+        try {
+            List<Item> saved = transactionTemplate.execute(status -> itemRepository.saveAll(toInsert));
+            ItemStatusAggregates.Delta delta = new ItemStatusAggregates.Delta();
+            saved.forEach(item -> delta.move(null, item.getStatus()));
+            statusAggregates.apply(delta);
+            for (int k = 0; k < valid.size(); k++) {
+                results[valid.get(k)] = new BatchResult.ItemResult(valid.get(k), saved.get(k).getId(), HttpStatus.CREATED.value(), Map.of());
+            }
+        } catch (Exception e) {
+            for (int index : valid) {
+                Item item = items.get(index);
+                // the failed batch may already have assigned an id and version, which would turn the retry into a merge
+                item.setId(null);
+                item.setVersion(null);
+                try {
+                    Item saved = transactionTemplate.execute(status -> itemRepository.save(item));
+                    statusAggregates.move(null, saved.getStatus(), 1);
+                    results[index] = new BatchResult.ItemResult(index, saved.getId(), HttpStatus.CREATED.value(), Map.of());
+                } catch (Exception rowException) {
+                    results[index] = failedResult(index, null);
+                }
+            }
+        }
+        return BatchResult.of(Arrays.asList(results));
     }
 
-    public void deleteById(Long id) {
-        itemRepository.deleteById(id);
+    // bulk update: every element needs a valid body and the id of an existing item; an element that
+    // carries a version is only applied if the item still has that version (PRECONDITION_FAILED otherwise)
+    // the existing items are loaded with one findAllById, the new values are copied onto them and the
+    // transaction commit writes them as batched UPDATEs; like createAll, a failing batch is retried row by row
+    public BatchResult updateAll(List<Item> items) {
+        BatchResult.ItemResult[] results = new BatchResult.ItemResult[items.size()];
+        Map<Long, Integer> indexById = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            Map<String, String> errors = validate(item);
+            if (errors.isEmpty() && item.getId() == null) {
+                errors = Map.of("id", "Id is required for an update");
+            } else if (errors.isEmpty() && indexById.containsKey(item.getId())) {
+                errors = Map.of("id", "Id appears more than once in the batch");
+            }
+            if (errors.isEmpty()) {
+                indexById.put(item.getId(), i);
+            } else {
+                results[i] = new BatchResult.ItemResult(i, item.getId(), HttpStatus.BAD_REQUEST.value(), errors);
+            }
+        }
+
+        try {
+            ItemStatusAggregates.Delta delta = new ItemStatusAggregates.Delta();
+            Map<Long, Integer> statuses = transactionTemplate.execute(status -> {
+                Map<Long, Integer> outcome = new HashMap<>();
+                Map<Long, Item> existing = new HashMap<>();
+                itemRepository.findAllById(indexById.keySet()).forEach(item -> existing.put(item.getId(), item));
+                indexById.forEach((id, index) -> outcome.put(id, applyUpdate(items.get(index), existing.get(id), delta)));
+                return outcome;
+            });
+            statusAggregates.apply(delta);
+            indexById.forEach((id, index) -> results[index] = new BatchResult.ItemResult(index, id, statuses.get(id), Map.of()));
+        } catch (Exception e) {
+            indexById.forEach((id, index) -> {
+                try {
+                    ItemStatusAggregates.Delta delta = new ItemStatusAggregates.Delta();
+                    int status = transactionTemplate.execute(tx -> applyUpdate(items.get(index), itemRepository.findById(id).orElse(null), delta));
+                    statusAggregates.apply(delta);
+                    results[index] = new BatchResult.ItemResult(index, id, status, Map.of());
+                } catch (Exception rowException) {
+                    results[index] = failedResult(index, id);
+                }
+            });
+        } finally {
+            itemCache.evictAll(indexById.keySet());
+        }
+        return BatchResult.of(Arrays.asList(results));
+    }
+
+    // same field -> message map the controller returns for an invalid single item
+    private static Map<String, String> validate(Item item) {
+        if (item == null) {
+            return Map.of("item", "Item cannot be null");
+        }
+        return ItemCodec.validate(item);
+    }
+
+    private static BatchResult.ItemResult failedResult(int index, Long id) {
+        return new BatchResult.ItemResult(index, id, HttpStatus.INTERNAL_SERVER_ERROR.value(),
+                Map.of("item", "Item could not be saved"));
+    }
+
+    // copies the new values onto the managed entity, unless it doesn't exist or the element carries
+    // a version that is not the current one anymore; returns the HTTP status of the element
+    // a status change is added to "delta", to be applied to the status counters after the commit
+    private static int applyUpdate(Item source, Item target, ItemStatusAggregates.Delta delta) {
+        if (target == null) {
+            return HttpStatus.NOT_FOUND.value();
+        }
+        if (source.getVersion() != null && !source.getVersion().equals(target.getVersion())) {
+            return HttpStatus.PRECONDITION_FAILED.value();
+        }
+        delta.move(target.getStatus(), source.getStatus());
+        copyFields(source, target);
+        target.setLastModified(Instant.now());
+        return HttpStatus.OK.value();
+    }
+
+    private static void copyFields(Item source, Item target) {
+        target.setName(source.getName());
+        target.setDescription(source.getDescription());
+        target.setStatus(source.getStatus());
+        target.setEmail(source.getEmail());
+    }
+
+    public ItemCache.CacheStats getCacheStats() {
+        return itemCache.getStats();
+    }
+
+    public ItemProcessingExecutor.ExecutorStats getExecutorStats() {
+        return processingExecutor.getStats();
     }
 
 
@@ -66,46 +462,158 @@ public class ItemService {
 
     // Solution:
     // 1. Use a CompletableFuture list and wait for all threads to finish with "allOf"
-    // 2. Changed "processedItems" type to be CopyOnWriteArrayList and "processedCount" to be an AtomicInteger,
-    // which are thread-safe collections
-    // 3. Let Spring manage the async processing with @Async, so we don't need to use a custom ExecutorService
+    // 2. Removed the shared "processedItems" and "processedCount" fields: they were cleared by every call,
+    // so concurrent runs overwrote each other; the result is now built from the chunk futures (see 7)
+    // 3. No custom ExecutorService that is never shut down: the async part is ItemProcessor.process, which is
+    // @Async and runs on Spring's task executor; processItemsAsync itself is not @Async, it only starts or
+    // joins a run (see 10) and returns that run's future
     // 4. Catch exceptions and propagate them properly
 
-    @Async
+    // 5. The per-item version issued one findById and one save per item (2N round trips and N separate
+    // flushes). Items are now processed in chunks: a page of ids is read with keyset pagination, the chunk is
+    // loaded with a single findAllById, the status is changed in memory and the chunk is written back with
+    // saveAll inside one transaction, so Hibernate sends the updates as JDBC batches
+    // 6. At most "maxInFlightChunks" chunks run at the same time; the next page of ids is only read once a
+    // slot is free, so a large table never turns into an unbounded list of pending tasks
+    // 7. Each chunk returns the items it processed, so the result is assembled from the chunk futures
+    // instead of being collected in shared fields
+    // 8. Chunks run on the dedicated, bounded ItemProcessingExecutor instead of ForkJoinPool.commonPool(),
+    // and @Async is now actually enabled, so the coordinating loop runs on Spring's task executor
+
+    // 9. Every run is tracked by a ProcessingJob that holds its progress counters and a cancellation flag,
+    // so the job API (see ProcessingJobService) can report progress and stop a run that is in progress
+
+    // 10. Every run gets its own ProcessingJob, so its results and counters are isolated from other runs.
+    // Concurrent identical requests are coalesced: while a run of the same kind is in flight, callers
+    // join it and receive its future instead of starting another full-table sweep. This check happens
+    // here, before the @Async hop in ItemProcessor, so joining callers don't even occupy a thread
+
+    // 11. Items carry a lastModified timestamp that every client write sets, and the processor keeps a
+    // persisted watermark (see ProcessingWatermark). An incremental run only reads the ids of the items
+    // changed after the watermark, paging through the (lastModified, id) index, instead of sweeping the whole
+    // table; every successful run, full or incremental, moves the watermark forward
+
+    // 12. The fixed maxInFlightChunks is now only the upper bound: AdaptiveConcurrencyLimiter lowers and
+    // raises the number of chunks in flight from the measured chunk and API latencies and from chunk failures
+
+    // 13. A failing chunk no longer fails the run: its items are retried one by one with exponential backoff,
+    // and the ones that keep failing are recorded in the dead-letter table (see ItemProcessor.processChunk).
+    // A run reports processed, failed and skipped counts, and a DEAD_LETTERS run retries only the failures
+
     public CompletableFuture<List<Item>> processItemsAsync() {
-        processedItems.clear();
-        processedCount.set(0);
+        return startOrJoinRun(true, ProcessingJob.Mode.FULL).getResult();
+    }
 
-        List<Long> itemIds = itemRepository.findAllIds();
+    // only the items changed since the last successful run
+    public CompletableFuture<List<Item>> processChangedItemsAsync() {
+        return startOrJoinRun(true, ProcessingJob.Mode.INCREMENTAL).getResult();
+    }
 
-        List<CompletableFuture<Void>> futures = itemIds.stream()
-                .map(id -> CompletableFuture.runAsync(() -> {
-                    try {
-                        Thread.sleep(100);
+    // like processItemsAsync, but returns the run itself, so the caller can also see its counts
+    public ProcessingJob startCollectingRun(ProcessingJob.Mode mode) {
+        return startOrJoinRun(true, mode);
+    }
 
-                        Item item = itemRepository.findById(id).orElse(null);
-                        if (item == null) {
-                            return;
-                        }
+    // same as processItemsAsync, but the run doesn't keep the processed items; used by the job API
+    public ProcessingJob startProcessingJob() {
+        return startProcessingJob(ProcessingJob.Mode.FULL);
+    }
 
-                        processedCount.incrementAndGet();
+    public ProcessingJob startProcessingJob(ProcessingJob.Mode mode) {
+        return startOrJoinRun(false, mode);
+    }
 
-                        item.setStatus("PROCESSED");
-                        itemRepository.save(item);
-                        processedItems.add(item);
+    private ProcessingJob startOrJoinRun(boolean collectResults, ProcessingJob.Mode mode) {
+        RunKind kind = new RunKind(collectResults, mode);
+        ProcessingJob candidate = new ProcessingJob(collectResults, mode, null);
+        ProcessingJob run = inFlightRuns.compute(kind, (key, current) ->
+                current != null && !current.getResult().isDone() && !current.isCancelRequested() ? current : candidate);
 
-                    } catch (Exception e) {
-                        throw new RuntimeException("Failed to process item with id: " + id, e);
-                    }
-                }))
-                .collect(Collectors.toList());
+        if (run == candidate) {
+            launch(run);
+            run.getResult().whenComplete((items, ex) -> inFlightRuns.remove(kind, run));
+        }
+        return run;
+    }
+
+    // the items the processor gave up on, in item id order
+    public List<ItemDeadLetter> findDeadLetters(Long after, int limit) {
+        return deadLetterRepository.findPageAfter(after != null ? after : Long.MIN_VALUE, PageRequest.ofSize(limit));
+    }
 
-        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handle((result, ex) -> {
-                    if (ex != null) {
-                        throw new RuntimeException("Failed to process items", ex);
+    // starts a run that hands every processed chunk to "listener" as soon as it is saved, and keeps nothing
+    // in memory; it is never coalesced with other runs, because a caller joining halfway through would
+    // miss the chunks that were processed before it joined
+    public ProcessingJob startStreamingRun(Consumer<List<Item>> listener) {
+        ProcessingJob run = new ProcessingJob(false, listener);
+        launch(run);
+        return run;
+    }
+
+    // set-based processing: moves every item in "sourceStatus" (or in any other status, when it is null) to
+    // "targetStatus" with UPDATE statements, without loading a single entity
+    // without a partition size this is a single statement over the whole table; with one, the id space is
+    // cut into ranges of that size and every range is updated in its own short transaction, so a huge table
+    // doesn't hold row locks for the whole run
+    // this only fits as long as processing is just a status change; the per-entity path above
+    // (processItemsAsync) stays for when real per-item logic is plugged in
+    public BulkUpdateResult transitionStatus(String sourceStatus, String targetStatus, Integer partitionSize) {
+        long start = System.nanoTime();
+        long affected = 0;
+        int partitions = 0;
+
+        if (partitionSize == null) {
+            affected = updateStatusInRange(sourceStatus, targetStatus, Long.MIN_VALUE, Long.MAX_VALUE);
+            partitions = 1;
+        } else {
+            IdRange range = itemRepository.findIdRange();
+            if (!range.isEmpty()) {
+                for (long from = range.from(); from <= range.to(); from += partitionSize) {
+                    long to = Math.min(from + partitionSize - 1, range.to());
+                    affected += updateStatusInRange(sourceStatus, targetStatus, from, to);
+                    partitions++;
+                    if (to == range.to()) {
+                        break;
                     }
-                    return new ArrayList<>(processedItems);
-                });
+                }
+            }
+        }
+
+        // the UPDATE statements don't say which rows they changed, so every cached item may be stale now
+        itemCache.clear();
+        // without a source status the rows may have come from any status
+        if (sourceStatus == null && affected > 0) {
+            statusAggregates.markStale();
+        }
+
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        return new BulkUpdateResult(sourceStatus, targetStatus, affected, partitions, durationMillis);
+    }
+
+    // a transition from a source status moves exactly the affected rows from one counter to the other,
+    // right after each partition committed
+    private int updateStatusInRange(String sourceStatus, String targetStatus, long fromId, long toId) {
+        if (sourceStatus == null) {
+            return transactionTemplate.execute(status -> itemRepository.updateStatusInRange(targetStatus, fromId, toId));
+        }
+        int affected = transactionTemplate.execute(status -> itemRepository.transitionStatusInRange(sourceStatus, targetStatus, fromId, toId));
+        statusAggregates.move(sourceStatus, targetStatus, affected);
+        return affected;
     }
-}
 
+    private void launch(ProcessingJob run) {
+        try {
+            itemProcessor.process(run).whenComplete((items, ex) -> {
+                if (ex != null) {
+                    run.getResult().completeExceptionally(ex);
+                } else {
+                    run.getResult().complete(items);
+                }
+            });
+        } catch (Exception e) {
+            // e.g. the task executor rejected the run; without this the run would stay "in flight" forever
+            run.finish(ProcessingJob.State.FAILED, e.getMessage());
+            run.getResult().completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.siemens.internship;
+
+// version and status an item had right before a single-statement update or delete, as the statement returns
+// them (see ItemRepository.updateById); an interface, since Spring Data maps native query rows onto projections
+public interface ItemState {
+
+    Long getVersion();
+
+    String getStatus();
+}
@@ -0,0 +1,277 @@
+package com.siemens.internship;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// number of items per status, kept in memory, behind GET /api/items/aggregates
+// counting in the database is a GROUP BY over the whole table, too much for a dashboard that polls every
+// second; here reading the counts costs a walk over a handful of counters
+// the counters are seeded with one GROUP BY when the context starts, and then follow the writes: ItemService
+// and ItemProcessor report every status change whose old and new status they know, after it was committed
+// (LongAdder, so concurrent chunks don't all contend on one value)
+// a write whose old status is unknown (an update through save, or a bulk update without a source status)
+// marks the counters stale instead, and they are recounted with the next check; besides, they are recounted
+// every reconcileInterval, which corrects whatever they missed, e.g. a change made by another instance on the
+// same database
+// changes applied while a recount's query runs are recorded, and applied again on top of its result; that is
+// only wrong for a change committed before the query started but applied after the recording did, a window
+// of a few microseconds on both sides, which the next periodic recount corrects
+@Component
+public class ItemStatusAggregates implements SmartLifecycle, MeterBinder {
+
+    private final ItemAggregatesProperties properties;
+    // swapped as a whole by a recount, so a reader never sees half of the old and half of the new counts
+    private volatile Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+    // changes take the read lock (any number at once), a recount takes the write lock only to start recording
+    // and to swap the counts, so no change is applied to the old counts without being recorded
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // the changes applied while a recount runs; null otherwise
+    private Queue<Map<String, Long>> journal;
+    private final AtomicLong invalidations = new AtomicLong();
+    private volatile long reconciledInvalidations = -1;
+    private volatile Instant reconciledAt;
+    private volatile boolean running;
+    private ScheduledFuture<?> scheduledCheck;
+    private MultiGauge statusGauge;
+
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private TaskScheduler taskScheduler;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public ItemStatusAggregates(ItemAggregatesProperties properties) {
+        this.properties = properties;
+    }
+
+    // status changes collected inside a transaction, to be applied once it has committed
+    public static final class Delta {
+        private final Map<String, Long> counts = new HashMap<>();
+
+        // "from" is null for a new item, "to" is null for a deleted one
+        public void move(String from, String to, long count) {
+            if (count == 0 || Objects.equals(from, to)) {
+                return;
+            }
+            if (from != null) {
+                counts.merge(from, -count, Long::sum);
+            }
+            if (to != null) {
+                counts.merge(to, count, Long::sum);
+            }
+        }
+
+        public void move(String from, String to) {
+            move(from, to, 1);
+        }
+    }
+
+    public void move(String from, String to, long count) {
+        Delta delta = new Delta();
+        delta.move(from, to, count);
+        apply(delta);
+    }
+
+    public void apply(Delta delta) {
+        if (delta.counts.isEmpty()) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            add(counts, delta.counts);
+            if (journal != null) {
+                journal.add(Map.copyOf(delta.counts));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void add(Map<String, LongAdder> counts, Map<String, Long> changes) {
+        changes.forEach((status, count) -> counts.computeIfAbsent(status, key -> new LongAdder()).add(count));
+    }
+
+    // the database was changed in a way the counters can't follow; the next check recounts
+    public void markStale() {
+        invalidations.incrementAndGet();
+    }
+
+    public boolean isStale() {
+        return reconciledInvalidations != invalidations.get();
+    }
+
+    // false until the first recount succeeded
+    public boolean isReady() {
+        return reconciledAt != null;
+    }
+
+    // one GROUP BY, then its result plus the changes applied meanwhile replace the old counts
+    public synchronized void reconcile() {
+        long invalidationsBefore = invalidations.get();
+        Queue<Map<String, Long>> recorded = new ConcurrentLinkedQueue<>();
+        setJournal(recorded);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<StatusCount> rows;
+        try {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            rows = readOnly.execute(status -> itemRepository.countGroupedByStatus());
+        } catch (RuntimeException e) {
+            setJournal(null);
+            sample.stop(meterRegistry.timer("items.aggregates.reconcile", "outcome", "failure"));
+            throw e;
+        }
+        sample.stop(meterRegistry.timer("items.aggregates.reconcile", "outcome", "success"));
+
+        Map<String, LongAdder> recounted = new ConcurrentHashMap<>();
+        for (StatusCount row : rows) {
+            // status is required, so there shouldn't be any rows without one; they aren't counted
+            if (row.status() != null) {
+                recounted.computeIfAbsent(row.status(), key -> new LongAdder()).add(row.count());
+            }
+        }
+        boolean seeded = reconciledAt != null;
+        Map<String, Long> before;
+        Map<String, Long> after;
+        lock.writeLock().lock();
+        try {
+            journal = null;
+            recorded.forEach(changes -> add(recounted, changes));
+            // both sides contain the same changes now, so any difference is drift
+            before = snapshot(counts);
+            after = snapshot(recounted);
+            counts = recounted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Set<String> statuses = new HashSet<>(before.keySet());
+        statuses.addAll(after.keySet());
+        long drift = 0;
+        for (String status : statuses) {
+            drift += Math.abs(after.getOrDefault(status, 0L) - before.getOrDefault(status, 0L));
+        }
+        reconciledAt = Instant.now();
+        reconciledInvalidations = invalidationsBefore;
+        // how far the counters were off; stays at zero as long as every write is followed (seeding is not drift)
+        if (seeded && drift > 0) {
+            meterRegistry.counter("items.aggregates.drift").increment(drift);
+        }
+        registerStatusGauges();
+    }
+
+    private void setJournal(Queue<Map<String, Long>> recording) {
+        lock.writeLock().lock();
+        try {
+            journal = recording;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public ItemAggregates getAggregates() {
+        Map<String, Long> statuses = snapshot(counts);
+        long total = statuses.values().stream().mapToLong(Long::longValue).sum();
+        long backlog = total - statuses.getOrDefault(ItemProcessor.PROCESSED, 0L);
+        return new ItemAggregates(statuses, total, backlog, reconciledAt, isStale());
+    }
+
+    public long getCount(String status) {
+        LongAdder count = counts.get(status);
+        return count != null ? count.sum() : 0;
+    }
+
+    // statuses in alphabetical order; a status whose last item is gone is left out
+    private static Map<String, Long> snapshot(Map<String, LongAdder> counts) {
+        Map<String, Long> statuses = new TreeMap<>();
+        counts.forEach((status, count) -> {
+            long value = count.sum();
+            if (value != 0) {
+                statuses.put(status, value);
+            }
+        });
+        return statuses;
+    }
+
+    private void checkQuietly() {
+        try {
+            Instant last = reconciledAt;
+            if (isStale() || last == null || last.plus(properties.getReconcileInterval()).isBefore(Instant.now())) {
+                reconcile();
+            }
+        } catch (RuntimeException e) {
+            // already counted by the reconcile timer; the counters stay stale and the next check tries again
+        }
+    }
+
+    // one gauge per status known at the last recount; a status that shows up in between gets its gauge then
+    private void registerStatusGauges() {
+        if (statusGauge != null) {
+            statusGauge.register(counts.keySet().stream()
+                    .<MultiGauge.Row<?>>map(status -> MultiGauge.Row.of(Tags.of("status", status), this, aggregates -> aggregates.getCount(status)))
+                    .toList(), true);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("items.backlog", this, aggregates -> aggregates.getAggregates().backlog())
+                .description("Items that are not PROCESSED yet")
+                .register(registry);
+        statusGauge = MultiGauge.builder("items.status")
+                .description("Items per status")
+                .register(registry);
+        registerStatusGauges();
+    }
+
+    // seeds the counters before the application takes requests; if the database can't be read yet, the
+    // endpoint answers SERVICE_UNAVAILABLE and the scheduled check tries again
+    @Override
+    public void start() {
+        checkQuietly();
+        scheduledCheck = taskScheduler.scheduleWithFixedDelay(this::checkQuietly, properties.getStaleCheckInterval());
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduledCheck != null) {
+            scheduledCheck.cancel(false);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,55 @@
+package com.siemens.internship;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+// file formats of the bulk export and import (see ItemTransferService): one item per line as JSON, or CSV with a
+// header row; either of them optionally gzip-compressed
+public enum ItemTransferFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+    private final String extension;
+
+    ItemTransferFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String fileName(String baseName, boolean gzip) {
+        return baseName + "." + extension + (gzip ? ".gz" : "");
+    }
+
+    // "ndjson" or "csv", in any case
+    public static ItemTransferFormat of(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown format \"" + name + "\", expected ndjson or csv");
+        }
+    }
+
+    // from the extension: .ndjson, .jsonl or .csv, each optionally followed by .gz
+    public static ItemTransferFormat of(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (isGzip(file)) {
+            name = name.substring(0, name.length() - 3);
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        throw new IllegalArgumentException("Can't tell the format of " + file + ", expected .ndjson, .jsonl or .csv (optionally .gz)");
+    }
+
+    public static boolean isGzip(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz");
+    }
+}
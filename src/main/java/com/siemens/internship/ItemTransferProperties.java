@@ -0,0 +1,29 @@
+package com.siemens.internship;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+// settings of the bulk export and import (see ItemTransferService), bound from "items.transfer.*"
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "items.transfer")
+public class ItemTransferProperties {
+
+    // rows inserted per transaction of an import, and how often its checkpoint moves
+    @Min(1)
+    private int batchSize = 1_000;
+
+    // invalid rows beyond this many are only counted, not listed in the result
+    @Min(0)
+    private int maxReportedErrors = 100;
+
+    // size of the read/write buffers in front of the channels (and of the gzip streams)
+    @NotNull
+    private DataSize bufferSize = DataSize.ofKilobytes(64);
+}
@@ -0,0 +1,67 @@
+package com.siemens.internship;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+
+// the bulk export and import from the command line, without going through HTTP:
+//   java -jar internship.jar --export-items=items.ndjson.gz
+//   java -jar internship.jar --import-items=items.csv.gz [--import-name=restore-1]
+// the format comes from the file name (.ndjson, .jsonl or .csv, optionally .gz); an import is named after its
+// file unless --import-name says otherwise, and running the same command again after a failure resumes it
+// the application exits when the transfer is done (status 1 if it failed), without this option it starts as usual
+@Component
+public class ItemTransferRunner implements ApplicationRunner {
+
+    static final String EXPORT_OPTION = "export-items";
+    static final String IMPORT_OPTION = "import-items";
+    static final String IMPORT_NAME_OPTION = "import-name";
+
+    @Autowired
+    private ItemTransferService itemTransferService;
+    @Autowired
+    private ApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String export = single(args, EXPORT_OPTION);
+        String importFile = single(args, IMPORT_OPTION);
+        if (export == null && importFile == null) {
+            return;
+        }
+        int exitCode = transfer(export, importFile, single(args, IMPORT_NAME_OPTION));
+        System.exit(SpringApplication.exit(context, (ExitCodeGenerator) () -> exitCode));
+    }
+
+    int transfer(String export, String importFile, String importName) {
+        try {
+            if (importFile != null) {
+                Path file = Path.of(importFile);
+                ItemImportResult result = itemTransferService.importFile(file,
+                        importName != null ? importName : file.getFileName().toString());
+                System.out.printf("Imported %d items from %s (%d invalid rows)%n", result.imported(), file, result.failed());
+                result.errors().forEach(error -> System.out.printf("  line %d: %s%n", error.line(), error.errors()));
+            }
+            if (export != null) {
+                long rows = itemTransferService.exportToFile(Path.of(export));
+                System.out.printf("Exported %d items to %s%n", rows, export);
+            }
+            return 0;
+        } catch (Exception e) {
+            System.err.println("Transfer failed: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static String single(ApplicationArguments args, String option) {
+        List<String> values = args.getOptionValues(option);
+        return values == null || values.isEmpty() ? null : values.get(values.size() - 1);
+    }
+}
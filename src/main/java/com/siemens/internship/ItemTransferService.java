@@ -0,0 +1,352 @@
+package com.siemens.internship;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// bulk export and import of the whole item table as NDJSON or CSV, optionally gzip-compressed, behind
+// GET /api/items/export, POST /api/items/import and the command line (see ItemTransferRunner)
+// export: the rows come from a database cursor as projections (no entities, no persistence context) and are
+// written through one buffer into the channel, so memory doesn't grow with the table
+// import: the input is read line by line through one buffer; every row is parsed and validated on its own
+// (ItemCodec, the same rules as POST /api/items) and the valid ones are inserted batchSize at a time in one
+// transaction, which Hibernate sends as JDBC batches; an invalid row is reported with its line number and
+// doesn't stop the import
+// every batch commits together with the import's checkpoint, so an import that stopped halfway (crash,
+// dropped connection) is started again with the same name and only reads past the rows already committed
+@Service
+public class ItemTransferService {
+
+    private final ItemTransferProperties properties;
+    // a plain factory is enough for ItemCodec; no separator between root values, the lines are separated by hand
+    private final JsonFactory jsonFactory = new JsonFactoryBuilder().rootValueSeparator((String) null).build();
+
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemImportCheckpointRepository checkpointRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ItemStatusAggregates statusAggregates;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public ItemTransferService(ItemTransferProperties properties) {
+        this.properties = properties;
+    }
+
+    private interface RowWriter {
+        void write(ItemView item) throws IOException;
+    }
+
+    // writes every item to the channel and closes it; returns the number of items
+    public long export(WritableByteChannel channel, ItemTransferFormat format, boolean gzip) throws IOException {
+        int bufferSize = bufferSize();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        OutputStream target = Channels.newOutputStream(channel);
+        try (OutputStream out = new BufferedOutputStream(gzip ? new GZIPOutputStream(target, bufferSize) : target, bufferSize)) {
+            long rows;
+            if (format == ItemTransferFormat.NDJSON) {
+                JsonGenerator generator = jsonFactory.createGenerator(out);
+                rows = exportRows(item -> {
+                    ItemCodec.write(generator, item);
+                    generator.writeRaw('\n');
+                });
+                generator.flush();
+            } else {
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                ItemCsv.writeHeader(writer);
+                rows = exportRows(item -> ItemCsv.write(writer, item));
+                writer.flush();
+            }
+            outcome = "success";
+            return rows;
+        } finally {
+            sample.stop(meterRegistry.timer("items.transfer.export", "format", format.name().toLowerCase(), "outcome", outcome));
+        }
+    }
+
+    // the format comes from the file name (e.g. items.csv.gz); the file is written under a temporary name and
+    // only replaces the target once it is complete, so a failed export never leaves half a file behind
+    public long exportToFile(Path file) throws IOException {
+        Path target = file.toAbsolutePath();
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        long rows;
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            rows = export(channel, ItemTransferFormat.of(file), ItemTransferFormat.isGzip(file));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows;
+    }
+
+    // the cursor keeps its transaction (and connection) open for the whole export
+    private long exportRows(RowWriter writer) throws IOException {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        try {
+            return readOnly.execute(status -> {
+                long rows = 0;
+                try (Stream<ItemView> items = itemRepository.streamAllViews()) {
+                    for (ItemView item : (Iterable<ItemView>) items::iterator) {
+                        writer.write(item);
+                        rows++;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return rows;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public Optional<ItemImportCheckpoint> findCheckpoint(String name) {
+        return checkpointRepository.findById(name);
+    }
+
+    public ItemImportResult importFile(Path file, String name) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return importFrom(channel, ItemTransferFormat.of(file), ItemTransferFormat.isGzip(file), name);
+        }
+    }
+
+    // imports everything after the checkpoint of "name" (all of it if there is none yet); the input must be the
+    // same as the one the import was started with
+    // throws IllegalStateException if the import under that name has already completed, so running it again
+    // doesn't insert everything twice, or if another import of that name is running (see commit)
+    public ItemImportResult importFrom(ReadableByteChannel channel, ItemTransferFormat format, boolean gzip, String name) throws IOException {
+        ItemImportCheckpoint checkpoint = checkpointRepository.findById(name).orElseGet(() -> new ItemImportCheckpoint(name, format));
+        if (checkpoint.isCompleted()) {
+            throw new IllegalStateException("Import \"" + name + "\" has already completed");
+        }
+        if (!checkpoint.getFormat().equals(format.name())) {
+            throw new IllegalArgumentException("Import \"" + name + "\" was started as " + checkpoint.getFormat().toLowerCase());
+        }
+        if (checkpoint.getStartedAt() == null) {
+            checkpoint.setStartedAt(Instant.now());
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            ItemImportResult result = importRecords(channel, format, gzip, checkpoint);
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(meterRegistry.timer("items.transfer.import", "format", format.name().toLowerCase(), "outcome", outcome));
+        }
+    }
+
+    private ItemImportResult importRecords(ReadableByteChannel channel, ItemTransferFormat format, boolean gzip,
+                                           ItemImportCheckpoint checkpoint) throws IOException {
+        int bufferSize = bufferSize();
+        ReadableByteChannel input = gzip
+                ? Channels.newChannel(new GZIPInputStream(Channels.newInputStream(channel), bufferSize))
+                : channel;
+        RecordReader records = new RecordReader(new ChannelLineReader(input, bufferSize, 0), format);
+
+        int[] columns = null;
+        int headerSize = 0;
+        if (format == ItemTransferFormat.CSV) {
+            String header = records.next();
+            if (header != null) {
+                List<String> names = ItemCsv.parse(header);
+                columns = ItemCsv.columnIndexes(names);
+                headerSize = names.size();
+            }
+        }
+
+        long resumedAt = checkpoint.getLine();
+        if (checkpoint.getByteOffset() > records.reader.position()) {
+            // an uncompressed input that can seek jumps straight to the offset; anything else reads up to it
+            if (!gzip && channel instanceof SeekableByteChannel seekable) {
+                seekable.position(checkpoint.getByteOffset());
+                records = new RecordReader(new ChannelLineReader(input, bufferSize, checkpoint.getByteOffset()), format);
+            } else {
+                String skipped = "";
+                while (skipped != null && records.reader.position() < checkpoint.getByteOffset()) {
+                    skipped = records.reader.readLine();
+                }
+            }
+            records.line = checkpoint.getLine();
+        }
+
+        List<ItemImportResult.RowError> errors = new ArrayList<>();
+        List<Item> batch = new ArrayList<>(properties.getBatchSize());
+        long failed = 0;
+        String record;
+        while ((record = records.next()) != null) {
+            if (record.isBlank()) {
+                continue;
+            }
+            Map<String, String> rowErrors;
+            Item item = null;
+            try {
+                item = format == ItemTransferFormat.NDJSON ? parseJson(record) : parseCsv(record, columns, headerSize);
+                rowErrors = ItemCodec.validate(item);
+            } catch (JsonProcessingException e) {
+                rowErrors = Map.of("record", e.getOriginalMessage());
+            } catch (IOException | RuntimeException e) {
+                rowErrors = Map.of("record", String.valueOf(e.getMessage()));
+            }
+
+            if (rowErrors.isEmpty()) {
+                batch.add(item);
+            } else {
+                failed++;
+                if (errors.size() < properties.getMaxReportedErrors()) {
+                    errors.add(new ItemImportResult.RowError(records.recordLine, rowErrors));
+                }
+            }
+            if (batch.size() == properties.getBatchSize()) {
+                checkpoint = commit(checkpoint, batch, failed, records, false);
+                batch = new ArrayList<>(properties.getBatchSize());
+                failed = 0;
+            }
+        }
+        checkpoint = commit(checkpoint, batch, failed, records, true);
+        return new ItemImportResult(checkpoint.getName(), checkpoint.getImported(), checkpoint.getFailed(), resumedAt, errors);
+    }
+
+    // inserts the batch and moves the checkpoint past it (and past the invalid rows read with it) in one transaction
+    private ItemImportCheckpoint commit(ItemImportCheckpoint checkpoint, List<Item> batch, long failed,
+                                        RecordReader records, boolean completed) {
+        // like POST /api/items: ids and versions are assigned here, and the import counts as a change
+        Instant now = Instant.now();
+        batch.forEach(item -> {
+            item.setId(null);
+            item.setVersion(null);
+            item.setLastModified(now);
+        });
+        checkpoint.setByteOffset(records.reader.position());
+        checkpoint.setLine(records.line);
+        checkpoint.setImported(checkpoint.getImported() + batch.size());
+        checkpoint.setFailed(checkpoint.getFailed() + failed);
+        checkpoint.setCompleted(completed);
+        checkpoint.setUpdatedAt(now);
+        boolean first = checkpoint.getVersion() == null;
+        ItemImportCheckpoint saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                itemRepository.saveAll(batch);
+                return checkpointRepository.save(checkpoint);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // two first runs of the same name both insert the checkpoint; the one that commits second loses,
+            // like a later batch loses on the version
+            if (first && checkpointRepository.existsById(checkpoint.getName())) {
+                throw new IllegalStateException("Import \"" + checkpoint.getName() + "\" is already running", e);
+            }
+            throw e;
+        }
+
+        ItemStatusAggregates.Delta delta = new ItemStatusAggregates.Delta();
+        batch.forEach(item -> delta.move(null, item.getStatus()));
+        statusAggregates.apply(delta);
+        meterRegistry.counter("items.transfer.imported").increment(batch.size());
+        meterRegistry.counter("items.transfer.failed").increment(failed);
+        return saved;
+    }
+
+    private Item parseJson(String record) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(record)) {
+            Item item = ItemCodec.read(parser);
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after the item");
+            }
+            return item;
+        }
+    }
+
+    private static Item parseCsv(String record, int[] columns, int headerSize) {
+        if (!ItemCsv.isComplete(record)) {
+            throw new IllegalArgumentException("Quoted field is not closed");
+        }
+        List<String> fields = ItemCsv.parse(record);
+        if (fields.size() != headerSize) {
+            throw new IllegalArgumentException("Expected " + headerSize + " fields but got " + fields.size());
+        }
+        return ItemCsv.toItem(fields, columns);
+    }
+
+    private int bufferSize() {
+        return (int) properties.getBufferSize().toBytes();
+    }
+
+    // one record per call: a line of NDJSON, or as many lines as a CSV record with line breaks in quoted fields needs
+    private static final class RecordReader {
+        private final ChannelLineReader reader;
+        private final ItemTransferFormat format;
+        // lines read so far, and the line the last record started on
+        private long line;
+        private long recordLine;
+
+        RecordReader(ChannelLineReader reader, ItemTransferFormat format) {
+            this.reader = reader;
+            this.format = format;
+        }
+
+        // null at the end of the input; an unterminated CSV record is returned as it is
+        String next() throws IOException {
+            String first = reader.readLine();
+            if (first == null) {
+                return null;
+            }
+            recordLine = ++line;
+            if (format == ItemTransferFormat.NDJSON || ItemCsv.isComplete(first)) {
+                return first;
+            }
+            StringBuilder record = new StringBuilder(first);
+            String next;
+            while (!ItemCsv.isComplete(record) && (next = reader.readLine()) != null) {
+                line++;
+                record.append('\n').append(next);
+            }
+            return record.toString();
+        }
+    }
+}
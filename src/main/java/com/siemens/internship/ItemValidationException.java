@@ -0,0 +1,19 @@
+package com.siemens.internship;
+
+import java.util.Map;
+
+// thrown by ItemController when a request body is a well-formed item that breaks the validation rules;
+// ItemController turns it into BAD_REQUEST with the field -> message map, like the BindingResult it replaced
+public class ItemValidationException extends RuntimeException {
+
+    private final Map<String, String> errors;
+
+    public ItemValidationException(Map<String, String> errors) {
+        super("Invalid item: " + errors);
+        this.errors = errors;
+    }
+
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+}
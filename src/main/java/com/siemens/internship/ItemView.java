@@ -0,0 +1,15 @@
+package com.siemens.internship;
+
+import java.time.Instant;
+
+// read-only copy of an item, selected straight into this record by a JPQL constructor expression
+// unlike loading entities, nothing goes through the persistence context: no managed instances, no
+// dirty-checking snapshots, and the transaction has nothing to flush; it serializes to the same JSON as Item
+public record ItemView(Long id,
+                       String name,
+                       String description,
+                       String status,
+                       String email,
+                       Long version,
+                       Instant lastModified) {
+}
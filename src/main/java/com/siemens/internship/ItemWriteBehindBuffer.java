@@ -0,0 +1,238 @@
+package com.siemens.internship;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+// optional write-behind layer for the statuses set by processing: instead of every chunk committing its own
+// transaction, the chunks only add their items here and go on with the next one; the items are written later,
+// in batches, when the buffer is full (maxSize) or every flushInterval, whichever comes first
+// writes to the same item coalesce: only its latest status is written, once per flush
+// every entry remembers the version the item had when it was read, and is only written if the item still has
+// it; if a client changed the item in the meantime, the client wins and the entry is dropped (counted as
+// skipped), the change makes it show up in the next incremental run anyway
+// durability: a processing run flushes before it completes (or before a partitioned range is marked done),
+// so a completed run means the statuses are in the database; a flush that fails leaves its entries in the
+// buffer to be retried by the next one; on shutdown, see stop() for what is and isn't guaranteed
+@Slf4j
+@Component
+public class ItemWriteBehindBuffer implements SmartLifecycle, MeterBinder {
+
+    private final ItemWriteBehindProperties properties;
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    // one flush at a time, so batches never overtake each other
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile boolean running;
+    private ScheduledFuture<?> scheduledFlush;
+
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ItemCache itemCache;
+    @Autowired
+    private ItemStatusAggregates statusAggregates;
+    @Autowired
+    private TaskScheduler taskScheduler;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public ItemWriteBehindBuffer(ItemWriteBehindProperties properties) {
+        this.properties = properties;
+    }
+
+    private record Pending(String status, Long version) {
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    // the items must not be managed by a persistence context anymore, since their changes are written here
+    public void add(List<Item> items) {
+        boolean coalesced = false;
+        for (Item item : items) {
+            if (pending.put(item.getId(), new Pending(item.getStatus(), item.getVersion())) != null) {
+                meterRegistry.counter("items.write_behind.coalesced").increment();
+                coalesced = true;
+            }
+        }
+        // the item was read again before its first entry was written, so the status counters saw the same
+        // change twice
+        if (coalesced) {
+            statusAggregates.markStale();
+        }
+        if (!running || pending.size() >= properties.getMaxSize()) {
+            flush();
+        }
+    }
+
+    public int getDepth() {
+        return pending.size();
+    }
+
+    // writes everything that is waiting, batchSize items per transaction; if a batch fails, its exception is
+    // thrown and the entries of that batch and of the ones after it stay in the buffer
+    public void flush() {
+        flushLock.lock();
+        try {
+            while (!pending.isEmpty()) {
+                Map<Long, Pending> batch = new LinkedHashMap<>();
+                for (Map.Entry<Long, Pending> entry : pending.entrySet()) {
+                    batch.put(entry.getKey(), entry.getValue());
+                    if (batch.size() == properties.getBatchSize()) {
+                        break;
+                    }
+                }
+                write(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // processing reads a whole chunk at once, so most entries of a batch share their status and version, and
+    // the batch comes down to a few UPDATE statements without loading a single entity
+    private void write(Map<Long, Pending> batch) {
+        Map<Pending, List<Long>> idsByUpdate = new HashMap<>();
+        batch.forEach((id, update) -> idsByUpdate.computeIfAbsent(update, key -> new ArrayList<>()).add(id));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int written;
+        try {
+            written = transactionTemplate.execute(status -> {
+                int rows = 0;
+                for (Map.Entry<Pending, List<Long>> update : idsByUpdate.entrySet()) {
+                    Long version = update.getKey().version();
+                    rows += itemRepository.updateStatusIfVersion(update.getValue(), update.getKey().status(),
+                            version != null ? version : 0);
+                }
+                return rows;
+            });
+        } catch (RuntimeException e) {
+            sample.stop(meterRegistry.timer("items.write_behind.flush", "outcome", "failure"));
+            throw e;
+        }
+        sample.stop(meterRegistry.timer("items.write_behind.flush", "outcome", "success"));
+        // an entry replaced while the batch was written is newer, so it stays for the next flush
+        batch.forEach(pending::remove);
+        itemCache.evictAll(batch.keySet());
+        meterRegistry.counter("items.write_behind.written").increment(written);
+        // changed by a client in the meantime, deleted, or already had that status
+        meterRegistry.counter("items.write_behind.skipped").increment(batch.size() - written);
+        // processing already counted these items as moved to their new status
+        if (written < batch.size()) {
+            statusAggregates.markStale();
+        }
+    }
+
+    // the scheduler has nobody to report to; the entries stay and the next flush tries again
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // already counted by the flush timer
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("items.write_behind.depth", pending, Map::size)
+                .description("Processed items whose status has not been written yet")
+                .register(registry);
+    }
+
+    @Override
+    public void start() {
+        if (properties.isEnabled()) {
+            scheduledFlush = taskScheduler.scheduleWithFixedDelay(this::flushQuietly, properties.getFlushInterval());
+        }
+        running = true;
+    }
+
+    // stops before the database and the processing executor are shut down, since those are beans and are
+    // only destroyed after every lifecycle has stopped; chunks still running after this write through
+    // there is no later flush to leave failed entries to, so the final one is retried for up to shutdownTimeout;
+    // if it still fails, every entry is tried on its own, so one item that can't be written doesn't take the
+    // others with it; entries that fail even then are dropped and logged at ERROR with their ids, and those
+    // items keep the status they have in the database
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+        }
+        if (flushUntil(System.nanoTime() + properties.getShutdownTimeout().toNanos())) {
+            return;
+        }
+        flushEachQuietly();
+        if (!pending.isEmpty()) {
+            Map<Long, Pending> dropped = new HashMap<>(pending);
+            dropped.forEach(pending::remove);
+            log.error("Dropping {} processed statuses that could not be written on shutdown, items {}",
+                    dropped.size(), dropped.keySet());
+            meterRegistry.counter("items.write_behind.dropped").increment(dropped.size());
+            // processing already counted these items as moved to their new status
+            statusAggregates.markStale();
+        }
+    }
+
+    // true once the buffer is empty, false if the deadline passed (or the thread was interrupted) first
+    private boolean flushUntil(long deadline) {
+        long pauseMillis = 50;
+        while (true) {
+            try {
+                flush();
+                return true;
+            } catch (RuntimeException e) {
+                long remainingMillis = (deadline - System.nanoTime()) / 1_000_000;
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                try {
+                    Thread.sleep(Math.min(pauseMillis, remainingMillis));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                pauseMillis = Math.min(pauseMillis * 2, 1_000);
+            }
+        }
+    }
+
+    private void flushEachQuietly() {
+        flushLock.lock();
+        try {
+            for (Map.Entry<Long, Pending> entry : new ArrayList<>(pending.entrySet())) {
+                try {
+                    write(Map.of(entry.getKey(), entry.getValue()));
+                } catch (RuntimeException e) {
+                    // already counted by the flush timer; dropped by stop()
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
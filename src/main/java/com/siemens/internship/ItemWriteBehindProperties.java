@@ -0,0 +1,38 @@
+package com.siemens.internship;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+// settings of the write-behind buffer for processed statuses (see ItemWriteBehindBuffer), bound from "items.write-behind.*"
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "items.write-behind")
+public class ItemWriteBehindProperties {
+
+    // when disabled, every chunk writes its items in its own transaction, like before
+    private boolean enabled = false;
+
+    // once this many items are waiting, the chunk that added the last one flushes the buffer itself
+    // (and waits for it), so a slow database holds processing back instead of letting the buffer grow
+    @Min(1)
+    private int maxSize = 5_000;
+
+    // how many items are written in one transaction of a flush
+    @Min(1)
+    private int batchSize = 500;
+
+    // the buffer is flushed at least this often, however few items are waiting
+    @NotNull
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    // how long the final flush on shutdown keeps retrying before it writes item by item and drops what still fails
+    @NotNull
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,166 @@
+package com.siemens.internship;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// state of one processing run: progress counters, cancellation flag and outcome
+// the counters are updated by the chunk threads and read by whoever polls the job, so they are atomic
+// and the state fields are volatile
+public class ProcessingJob {
+
+    public enum State { RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    // which items a run looks at: all of them, the ones changed since the last successful run,
+    // or the ones that ended up in the dead-letter table
+    public enum Mode { FULL, INCREMENTAL, DEAD_LETTERS }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Instant startedAt = Instant.now();
+    private final boolean collectResults;
+    private final Mode mode;
+    private final Consumer<List<Item>> chunkListener;
+
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    // completed by ItemService when the pipeline is done; every caller that joined this run waits on it
+    private final CompletableFuture<List<Item>> result = new CompletableFuture<>();
+
+    private volatile boolean cancelRequested;
+    private volatile State state = State.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    // collectResults tells the pipeline whether the processed items have to be returned at the end;
+    // jobs that are only polled for progress don't need to keep them in memory
+    public ProcessingJob(boolean collectResults) {
+        this(collectResults, Mode.FULL, null);
+    }
+
+    // chunkListener is called with the items of every chunk right after the chunk was saved,
+    // from the thread that processed the chunk
+    public ProcessingJob(boolean collectResults, Consumer<List<Item>> chunkListener) {
+        this(collectResults, Mode.FULL, chunkListener);
+    }
+
+    public ProcessingJob(boolean collectResults, Mode mode, Consumer<List<Item>> chunkListener) {
+        this.collectResults = collectResults;
+        this.mode = mode;
+        this.chunkListener = chunkListener;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean isCollectResults() {
+        return collectResults;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public CompletableFuture<List<Item>> getResult() {
+        return result;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public boolean isFinished() {
+        return state != State.RUNNING;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    // only asks the pipeline to stop reading new chunks; the chunks that are already running finish normally
+    public void cancel() {
+        cancelRequested = true;
+    }
+
+    void setTotal(long total) {
+        this.total.set(total);
+    }
+
+    // partitioned runs only learn their share of the work range by range
+    void addTotal(long count) {
+        total.addAndGet(count);
+    }
+
+    void recordProcessed(long count) {
+        processed.addAndGet(count);
+    }
+
+    // a listener that fails (for example because the client it streams to went away) has nobody left
+    // to report to, so the rest of the run is cancelled instead of failing the chunk that was already saved
+    void notifyChunkProcessed(List<Item> items) {
+        if (chunkListener == null || items.isEmpty()) {
+            return;
+        }
+        try {
+            chunkListener.accept(items);
+        } catch (RuntimeException e) {
+            cancel();
+        }
+    }
+
+    void recordFailed(long count) {
+        failed.addAndGet(count);
+    }
+
+    // items that were gone by the time their chunk was loaded
+    void recordSkipped(long count) {
+        skipped.addAndGet(count);
+    }
+
+    void finish(State state, String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.state = state;
+    }
+
+    public Status getStatus() {
+        long processedNow = processed.get();
+        long failedNow = failed.get();
+        long skippedNow = skipped.get();
+        long totalNow = total.get();
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        double elapsedSeconds = Math.max(Duration.between(startedAt, end).toMillis(), 1) / 1000.0;
+        double itemsPerSecond = (processedNow + failedNow + skippedNow) / elapsedSeconds;
+
+        // the ETA is only meaningful while the job is running and something has been processed already
+        Long etaSeconds = null;
+        if (state == State.RUNNING && itemsPerSecond > 0) {
+            long remaining = Math.max(totalNow - processedNow - failedNow - skippedNow, 0);
+            etaSeconds = (long) Math.ceil(remaining / itemsPerSecond);
+        }
+
+        return new Status(id, state, cancelRequested, totalNow, processedNow, failedNow, skippedNow,
+                itemsPerSecond, etaSeconds, startedAt, finishedAt, error);
+    }
+
+    public record Status(String jobId,
+                         State state,
+                         boolean cancelRequested,
+                         long total,
+                         long processed,
+                         long failed,
+                         long skipped,
+                         double itemsPerSecond,
+                         Long etaSeconds,
+                         Instant startedAt,
+                         Instant finishedAt,
+                         String error) {
+    }
+}
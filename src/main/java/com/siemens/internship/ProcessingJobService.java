@@ -0,0 +1,54 @@
+package com.siemens.internship;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// keeps track of the processing jobs started through the job API
+// a job is started in the background and the caller gets its id right away, so long runs no longer
+// keep a servlet thread (and the HTTP connection) busy until every item is processed
+@Service
+public class ProcessingJobService {
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemProcessingProperties processingProperties;
+
+    private final Map<String, ProcessingJob> jobs = new ConcurrentHashMap<>();
+
+    public ProcessingJob.Status startJob(ProcessingJob.Mode mode) {
+        removeExpiredJobs();
+
+        // if a job of the same kind is already running, the caller gets that job back instead of a second sweep
+        ProcessingJob job = itemService.startProcessingJob(mode);
+        jobs.putIfAbsent(job.getId(), job);
+        return job.getStatus();
+    }
+
+    public Optional<ProcessingJob.Status> getJobStatus(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(ProcessingJob::getStatus);
+    }
+
+    public Optional<ProcessingJob.Status> cancelJob(String jobId) {
+        ProcessingJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        if (!job.isFinished()) {
+            job.cancel();
+        }
+        return Optional.of(job.getStatus());
+    }
+
+    // finished jobs are kept for a while so their final status can still be polled
+    private void removeExpiredJobs() {
+        Instant threshold = Instant.now().minus(processingProperties.getJobRetention());
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(threshold));
+    }
+}
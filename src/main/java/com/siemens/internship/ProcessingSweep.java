@@ -0,0 +1,31 @@
+package com.siemens.internship;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// the partitioned sweep a processor is currently working through, one row per processor
+// instances lock this row while they decide whether to join the current sweep or plan a new one,
+// so only one of them ever splits the id space (see ItemPartitionCoordinator)
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProcessingSweep {
+    @Id
+    private String processor;
+
+    // the ranges of this sweep are the ItemRangeLease rows with the same sweepId
+    private String sweepId;
+
+    private Instant startedAt;
+
+    // set by the instance that saw the last range finish
+    private Instant completedAt;
+}
@@ -0,0 +1,23 @@
+package com.siemens.internship;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface ProcessingSweepRepository extends JpaRepository<ProcessingSweep, String> {
+
+    // SELECT ... FOR UPDATE: other instances planning a sweep wait until this transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProcessingSweep s WHERE s.processor = :processor")
+    Optional<ProcessingSweep> findForUpdate(@Param("processor") String processor);
+
+    @Modifying
+    @Query("UPDATE ProcessingSweep s SET s.completedAt = :now WHERE s.sweepId = :sweepId AND s.completedAt IS NULL")
+    int markCompleted(@Param("sweepId") String sweepId, @Param("now") Instant now);
+}
@@ -0,0 +1,27 @@
+package com.siemens.internship;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// how far a processor got: every item changed after "watermark" still has to be processed by it
+// persisted, so incremental processing survives restarts and is shared by all instances
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProcessingWatermark {
+    @Id
+    private String processor;
+
+    private Instant watermark;
+
+    // when the watermark was last advanced
+    private Instant updatedAt;
+}
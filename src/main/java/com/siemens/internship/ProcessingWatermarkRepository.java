@@ -0,0 +1,6 @@
+package com.siemens.internship;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ProcessingWatermarkRepository extends JpaRepository<ProcessingWatermark, String> {
+}
@@ -0,0 +1,20 @@
+package com.siemens.internship;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+// Accept: application/x-jackson-smile; like CborConverter, but Smile also writes a repeated property name
+// once and refers back to it; sharing short string values is off by default and turned on here, so the
+// few distinct statuses of a long item list are written once too
+@Component
+public class SmileConverter extends MappingJackson2SmileHttpMessageConverter {
+
+    public SmileConverter(Jackson2ObjectMapperBuilder builder) {
+        super(builder.factory(SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build()).build());
+    }
+}
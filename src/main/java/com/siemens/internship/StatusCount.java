@@ -0,0 +1,5 @@
+package com.siemens.internship;
+
+// one row of SELECT status, COUNT(*) ... GROUP BY status
+public record StatusCount(String status, long count) {
+}
@@ -0,0 +1,88 @@
+package com.siemens.internship;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// the virtual-thread mode of ItemProcessingExecutor: a new virtual thread per chunk, started by Spring's
+// SimpleAsyncTaskExecutor (which creates them without compiling against the Java 21 API)
+// threads are not the scarce resource then, database connections are: the concurrency limit makes
+// a submitted chunk wait for a free slot, so there are never more chunks talking to the database than the
+// limit, however many chunks the AdaptiveConcurrencyLimiter lets through
+// a chunk is never rejected, except after close(); close() waits for running chunks, then interrupts them
+class VirtualThreadChunks implements Executor, AutoCloseable {
+
+    private final SimpleAsyncTaskExecutor executor;
+    private final int concurrencyLimit;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    VirtualThreadChunks(int concurrencyLimit, int awaitTerminationSeconds) {
+        this.concurrencyLimit = concurrencyLimit;
+        this.executor = new SimpleAsyncTaskExecutor(ItemProcessingExecutor.NAME + "-virtual-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        executor.setTaskTerminationTimeout(awaitTerminationSeconds * 1000L);
+        executor.setTaskDecorator(task -> () -> {
+            waiting.decrementAndGet();
+            running.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                running.decrementAndGet();
+                completed.increment();
+            }
+        });
+    }
+
+    // virtual threads are final since Java 21; SimpleAsyncTaskExecutor throws on older runtimes
+    static boolean isSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    // blocks the caller while the limit is reached, like the BLOCK rejection policy of the pool
+    @Override
+    public void execute(Runnable task) {
+        waiting.incrementAndGet();
+        try {
+            executor.execute(task);
+        } catch (RuntimeException e) {
+            waiting.decrementAndGet();
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    // the same meters ExecutorServiceMetrics publishes for the pool, as far as they mean something here
+    void bindTo(MeterRegistry registry, String name) {
+        Gauge.builder("executor.active", running, AtomicInteger::get).tag("name", name)
+                .description("Chunks running on virtual threads").register(registry);
+        Gauge.builder("executor.queued", waiting, AtomicInteger::get).tag("name", name)
+                .description("Chunks waiting for a free slot").register(registry);
+        Gauge.builder("executor.pool.max", () -> concurrencyLimit).tag("name", name)
+                .description("Chunks that may run at the same time").register(registry);
+        FunctionCounter.builder("executor.completed", completed, LongAdder::sum).tag("name", name)
+                .description("Chunks that finished").register(registry);
+        FunctionCounter.builder("executor.rejected", rejected, LongAdder::sum).tag("name", name)
+                .description("Chunks submitted after shutdown").register(registry);
+    }
+
+    ItemProcessingExecutor.ExecutorStats getStats(String name) {
+        int active = running.get();
+        // waiting for a slot is how this executor works, not saturation, so it isn't counted as such
+        return new ItemProcessingExecutor.ExecutorStats(name, active, concurrencyLimit, active, waiting.get(), 0,
+                completed.sum(), rejected.sum(), 0, true);
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
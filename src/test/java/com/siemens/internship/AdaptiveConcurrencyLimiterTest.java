@@ -0,0 +1,144 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    // the limiter's clock, moved forward by the tests; samples expire after sample-max-age (10s)
+    private final AtomicLong clock = new AtomicLong();
+
+    private AdaptiveConcurrencyLimiter limiter(int maxInFlight) {
+        ItemProcessingProperties properties = new ItemProcessingProperties();
+        properties.setMaxInFlightChunks(maxInFlight);
+        properties.getLimiter().setBackoffRatio(0.5);
+        return new AdaptiveConcurrencyLimiter(properties, clock::get);
+    }
+
+    @Test
+    void onChunk_Failure_LowersLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8);
+
+        limiter.onChunk(10 * MILLIS, 10, false);
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void onChunk_RepeatedFailures_StopsAtMinimum() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.onChunk(10 * MILLIS, 10, false);
+        }
+
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void onChunk_LatencyRises_LowersLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8);
+        limiter.onChunk(10 * MILLIS, 10, true);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.onChunk(100 * MILLIS, 10, true);
+        }
+
+        assertTrue(limiter.getLimit() < 8);
+    }
+
+    @Test
+    void onChunk_SlowApiRequests_LowersLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8);
+        limiter.onRequest("findById", MILLIS);
+        for (int i = 0; i < 5; i++) {
+            limiter.onRequest("findById", 50 * MILLIS);
+        }
+
+        limiter.onChunk(10 * MILLIS, 10, true);
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void onChunk_SlowBurstThenIdle_ChunksRecover() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(4);
+        limiter.onRequest("findById", MILLIS);
+        for (int i = 0; i < 5; i++) {
+            limiter.onRequest("findById", 50 * MILLIS);
+        }
+        limiter.onChunk(10 * MILLIS, 10, true);
+        limiter.onChunk(10 * MILLIS, 10, true);
+        assertEquals(1, limiter.getLimit());
+
+        // no requests any more; their last latencies must not hold the chunks down
+        clock.addAndGet(11_000 * MILLIS);
+        for (int i = 0; i < 50; i++) {
+            // the limit only grows while it is fully used
+            while (limiter.getInFlight() + 1 < limiter.getLimit()) {
+                limiter.acquire();
+            }
+            limiter.onChunk(10 * MILLIS, 10, true);
+        }
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void onChunk_RequestsAtTheirOwnNormalLatency_KeepsLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8);
+        // a fast lookup must not become the baseline of the (normally slower) updates
+        for (int i = 0; i < 5; i++) {
+            limiter.onRequest("findById", MILLIS);
+            limiter.onRequest("update", 20 * MILLIS);
+        }
+
+        limiter.onChunk(10 * MILLIS, 10, true);
+
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void onChunk_HealthyAfterBackoff_RaisesLimitUpToMaximum() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(4);
+        limiter.onChunk(10 * MILLIS, 10, false);
+        assertEquals(2, limiter.getLimit());
+
+        // the limit only grows while it is fully used
+        limiter.acquire();
+        limiter.acquire();
+        for (int i = 0; i < 50; i++) {
+            limiter.onChunk(10 * MILLIS, 10, true);
+        }
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void acquire_LimitReached_WaitsForRelease() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1);
+        limiter.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        limiter.release();
+        assertTrue(acquired.await(1, TimeUnit.SECONDS));
+        assertEquals(1, limiter.getInFlight());
+    }
+}
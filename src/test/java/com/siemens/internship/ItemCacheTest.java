@@ -0,0 +1,114 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemCacheTest {
+
+    private ItemCache cache(int maxSize, Duration ttl) {
+        ItemCacheProperties properties = new ItemCacheProperties();
+        properties.setMaxSize(maxSize);
+        properties.setTtl(ttl);
+        return new ItemCache(properties);
+    }
+
+    private Item item(long id) {
+        return new Item(id, "Item " + id, "Description " + id, "NEW", "item" + id + "@example.com");
+    }
+
+    @Test
+    void getOrLoad_SecondLookup_IsServedFromCache() {
+        ItemCache cache = cache(10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getOrLoad(1L, id -> { loads.incrementAndGet(); return Optional.of(item(id)); });
+        Optional<Item> cached = cache.getOrLoad(1L, id -> { loads.incrementAndGet(); return Optional.of(item(id)); });
+
+        assertEquals(1, loads.get());
+        assertEquals("Item 1", cached.orElseThrow().getName());
+        assertEquals(1, cache.getStats().hits());
+        assertEquals(1, cache.getStats().misses());
+    }
+
+    @Test
+    void get_ReturnsCopy_SoCachedItemCannotBeModified() {
+        ItemCache cache = cache(10, Duration.ofMinutes(1));
+        cache.put(item(1L), cache.loadToken(1L));
+
+        cache.get(1L).setStatus("CHANGED");
+
+        assertEquals("NEW", cache.get(1L).getStatus());
+    }
+
+    @Test
+    void put_OverMaxSize_EvictsLeastRecentlyUsed() {
+        ItemCache cache = cache(2, Duration.ofMinutes(1));
+        cache.put(item(1L), cache.loadToken(1L));
+        cache.put(item(2L), cache.loadToken(2L));
+        cache.get(1L);
+        cache.put(item(3L), cache.loadToken(3L));
+
+        assertNotNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        assertNotNull(cache.get(3L));
+        assertEquals(1, cache.getStats().evictions());
+    }
+
+    @Test
+    void get_ExpiredEntry_IsAMiss() throws Exception {
+        ItemCache cache = cache(10, Duration.ofMillis(1));
+        cache.put(item(1L), cache.loadToken(1L));
+        Thread.sleep(5);
+
+        assertNull(cache.get(1L));
+        assertEquals(1, cache.getStats().expirations());
+        assertEquals(0, cache.getStats().size());
+    }
+
+    @Test
+    void put_InvalidatedWhileLoading_IsNotCached() {
+        ItemCache cache = cache(10, Duration.ofMinutes(1));
+        long token = cache.loadToken(1L);
+        cache.evictAll(List.of(1L));
+        cache.put(item(1L), token);
+
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void put_OtherItemInvalidatedWhileLoading_IsCached() {
+        ItemCache cache = cache(10, Duration.ofMinutes(1));
+        long token = cache.loadToken(1L);
+        cache.evict(2L);
+        cache.put(item(1L), token);
+
+        assertNotNull(cache.get(1L));
+    }
+
+    @Test
+    void put_ManySegments_HoldsAtMostMaxSize() {
+        ItemCache cache = cache(1_000, Duration.ofMinutes(1));
+        for (long id = 1; id <= 5_000; id++) {
+            cache.put(item(id), cache.loadToken(id));
+        }
+
+        assertEquals(1_000, cache.getStats().size());
+        assertEquals(4_000, cache.getStats().evictions());
+    }
+
+    @Test
+    void get_Disabled_AlwaysMisses() {
+        ItemCacheProperties properties = new ItemCacheProperties();
+        properties.setEnabled(false);
+        ItemCache cache = new ItemCache(properties);
+        cache.put(item(1L), cache.loadToken(1L));
+
+        assertNull(cache.get(1L));
+    }
+}
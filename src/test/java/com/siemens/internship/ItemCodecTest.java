@@ -0,0 +1,113 @@
+package com.siemens.internship;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemCodecTest {
+
+    // configured like Spring Boot's ObjectMapper, which the codec has to stay compatible with
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private Item read(String json) throws Exception {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            return ItemCodec.read(parser);
+        }
+    }
+
+    private String write(Item item) throws Exception {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            ItemCodec.write(generator, item);
+        }
+        return out.toString();
+    }
+
+    @Test
+    void write_Item_SameJsonAsObjectMapper() throws Exception {
+        Item item = new Item(7L, "Name \"quoted\"", "Dé\nscription", "NEW", "a@b.com", 3L, Instant.parse("2024-01-02T03:04:05.678Z"));
+        Item empty = new Item();
+
+        assertEquals(objectMapper.writeValueAsString(item), write(item));
+        assertEquals(objectMapper.writeValueAsString(empty), write(empty));
+    }
+
+    @Test
+    void read_WrittenItem_RoundTrips() throws Exception {
+        Item item = new Item(7L, "Name", "Description", "NEW", "a@b.com", 3L, Instant.parse("2024-01-02T03:04:05Z"));
+
+        Item read = read(objectMapper.writeValueAsString(item));
+
+        assertEquals(objectMapper.writeValueAsString(item), objectMapper.writeValueAsString(read));
+    }
+
+    @Test
+    void read_UnknownFieldsAndCoercedScalars_LikeObjectMapper() throws Exception {
+        String json = "{\"id\":\"5\",\"extra\":{\"a\":[1,2]},\"name\":12,\"status\":true,\"version\":null,\"lastModified\":1700000000.5}";
+
+        Item codec = read(json);
+        Item jackson = objectMapper.readValue(json, Item.class);
+
+        assertEquals(objectMapper.writeValueAsString(jackson), objectMapper.writeValueAsString(codec));
+    }
+
+    @Test
+    void read_NotAnObjectOrWrongType_Throws() {
+        assertThrows(JsonParseException.class, () -> read("[1]"));
+        assertThrows(JsonParseException.class, () -> read("{\"name\":[\"a\"]}"));
+        assertThrows(JsonParseException.class, () -> read("{\"id\":\"abc\"}"));
+        assertThrows(JsonParseException.class, () -> read(""));
+    }
+
+    @Test
+    void validate_ValidItem_ReturnsNoErrors() {
+        assertTrue(ItemCodec.validate(new Item(null, "n", "d", "NEW", "first.last+tag@mail.example.org")).isEmpty());
+    }
+
+    @Test
+    void validate_InvalidItem_SameMessagesAsAnnotations() {
+        Map<String, String> errors = ItemCodec.validate(new Item(null, " ", null, "\t", "invalid-email"));
+
+        assertEquals(Map.of(
+                "name", "Name cannot be blank",
+                "description", "Description cannot be blank",
+                "status", "Status cannot be blank",
+                "email", "Email must be a valid"), errors);
+        assertEquals(Map.of("email", "Email cannot be blank"), ItemCodec.validate(new Item(null, "n", "d", "s", " ")));
+        assertEquals(Map.of("email", "Email cannot be blank"), ItemCodec.validate(new Item(null, "n", "d", "s", null)));
+    }
+
+    @Test
+    void validate_Emails_AgreeWithBeanValidation() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        Pattern pattern = Pattern.compile(Item.EMAIL_PATTERN);
+        List<String> emails = List.of("a@b.co", "a@b.c", "a@.co", "a@b.co.uk", "a@b-c.d-e.com", "a@b.c0m", "a@b.com.",
+                ".a@b.com", "a.@b.com", "a+b_c-d@x.io", "a@@b.com", "a@b@c.com", "@b.com", "a@b", "a.b.com", "a b@c.com",
+                "a@b..com", "a@-.com", "ä@b.com", "a@b.cöm", "a@b.com\n", "1@2.ab", "a@1.2.ab", "a@b.com ");
+
+        for (String email : emails) {
+            Item item = new Item(null, "n", "d", "s", email);
+            Set<ConstraintViolation<Item>> violations = validator.validate(item);
+            assertEquals(violations.isEmpty(), ItemCodec.validate(item).isEmpty(), email);
+            assertEquals(pattern.matcher(email).matches(), ItemCodec.isValidEmail(email), email);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.siemens.internship;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,12 +13,23 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -29,9 +42,17 @@ public class ItemControllerTest {
     @MockBean
     private ItemService itemService;
 
+    @MockBean
+    private ProcessingJobService processingJobService;
+
+    @MockBean
+    private ItemTransferService itemTransferService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    private static final MediaType NDJSON_TYPE = MediaType.parseMediaType("application/x-ndjson");
+
     private Item item1;
     private Item item2;
 
@@ -41,10 +62,14 @@ public class ItemControllerTest {
         item2 = new Item(2L, "Item 2", "Description 2", "NEW", "item2@example.com");
     }
 
+    private ItemView view(Item item) {
+        return new ItemView(item.getId(), item.getName(), item.getDescription(), item.getStatus(), item.getEmail(), null, null);
+    }
+
     @Test
     void getAllItems_Success_ReturnsItems() throws Exception {
-        List<Item> items = Arrays.asList(item1, item2);
-        when(itemService.findAll()).thenReturn(items);
+        List<ItemView> items = Arrays.asList(view(item1), view(item2));
+        when(itemService.findAllViews()).thenReturn(items);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/items")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -54,19 +79,309 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$[1].id").value(2L))
                 .andExpect(jsonPath("$[1].name").value("Item 2"));
 
-        verify(itemService, times(1)).findAll();
+        verify(itemService, times(1)).findAllViews();
     }
 
     @Test
     void getAllItems_DatabaseError_ReturnsInternalServerError() throws Exception {
-        when(itemService.findAll()).thenThrow(new RuntimeException("Database error"));
+        when(itemService.findAllViews()).thenThrow(new RuntimeException("Database error"));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/items")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isInternalServerError())
                 .andExpect(content().string(""));
 
-        verify(itemService, times(1)).findAll();
+        verify(itemService, times(1)).findAllViews();
+    }
+
+    @Test
+    void getAllItems_WithFields_ReturnsOnlyThoseFields() throws Exception {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 1L);
+        row.put("status", "NEW");
+        when(itemService.findFields(List.of("id", "status"), null, null)).thenReturn(new ItemPage<>(List.of(row), null));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items").param("fields", "id,status"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].status").value("NEW"))
+                .andExpect(jsonPath("$[0].name").doesNotExist());
+
+        verify(itemService, never()).findAllViews();
+    }
+
+    @Test
+    void getAllItems_UnknownField_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items").param("fields", "id,password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.fields").exists());
+
+        verify(itemService, never()).findFields(any(), any(), any());
+    }
+
+    @Test
+    void getItemsPage_WithFields_ReturnsFieldPage() throws Exception {
+        when(itemService.findFields(List.of("id"), 5L, 1)).thenReturn(new ItemPage<>(List.of(Map.of("id", 6L)), 6L));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items").param("limit", "1").param("after", "5").param("fields", "id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(6L))
+                .andExpect(jsonPath("$.nextCursor").value(6L));
+
+        verify(itemService, never()).findPage(any(), anyInt());
+    }
+
+    @Test
+    void getItemsPage_ReturnsItemsAndNextCursor() throws Exception {
+        when(itemService.findPage(null, 2)).thenReturn(new ItemPage<>(Arrays.asList(item1, item2), 2L));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1L))
+                .andExpect(jsonPath("$.items[1].id").value(2L))
+                .andExpect(jsonPath("$.nextCursor").value(2L));
+
+        verify(itemService, times(1)).findPage(null, 2);
+        verify(itemService, never()).findAllViews();
+    }
+
+    @Test
+    void getItemsPage_WithCursor_PassesCursorToService() throws Exception {
+        when(itemService.findPage(2L, 10)).thenReturn(new ItemPage<Item>(List.of(), null));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items").param("limit", "10").param("after", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isEmpty())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getAllItems_AcceptColumnar_WritesColumnsAndStatusesOnce() throws Exception {
+        List<Map<String, Object>> rows = List.of(
+                new LinkedHashMap<>(Map.of("id", 1L, "status", "NEW")),
+                new LinkedHashMap<>(Map.of("id", 2L, "status", "PROCESSED")),
+                new LinkedHashMap<>(Map.of("id", 3L, "status", "NEW")));
+        when(itemService.findFields(List.of("id", "status"), null, null)).thenReturn(new ItemPage<>(rows, null));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items").param("fields", "id,status")
+                        .accept(ItemColumns.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ItemColumns.MEDIA_TYPE))
+                .andExpect(jsonPath("$.count").value(3))
+                .andExpect(jsonPath("$.statuses").value(contains("NEW", "PROCESSED")))
+                .andExpect(jsonPath("$.columns.id").value(contains(1, 2, 3)))
+                .andExpect(jsonPath("$.columns.status").value(contains(0, 1, 0)));
+
+        verify(itemService, never()).findAllViews();
+    }
+
+    @Test
+    void getItemsPage_AcceptColumnar_SelectsAllFieldsAndReturnsCursor() throws Exception {
+        when(itemService.findFields(ItemService.SELECTABLE_FIELDS, 5L, 1))
+                .thenReturn(new ItemPage<>(List.of(new LinkedHashMap<>(Map.of("id", 6L, "status", "NEW"))), 6L));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items").param("limit", "1").param("after", "5")
+                        .accept(ItemColumns.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.columns.id[0]").value(6))
+                .andExpect(jsonPath("$.columns.name[0]").isEmpty())
+                .andExpect(jsonPath("$.nextCursor").value(6));
+
+        verify(itemService, never()).findPage(any(), anyInt());
+    }
+
+    @Test
+    void getAllItems_AcceptCbor_ReturnsCbor() throws Exception {
+        when(itemService.findAllViews()).thenReturn(List.of(view(item1)));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/items").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        List<?> items = new CBORMapper().readValue(result.getResponse().getContentAsByteArray(), List.class);
+        assertEquals("Item 1", ((Map<?, ?>) items.get(0)).get("name"));
+    }
+
+    @Test
+    void getAllItems_AnyAccept_StaysJson() throws Exception {
+        when(itemService.findAllViews()).thenReturn(List.of(view(item1)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void getItemsPage_InvalidLimit_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items").param("limit", "100000"))
+                .andExpect(status().isBadRequest());
+
+        verify(itemService, never()).findPage(any(), anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamItems_WritesOneJsonObjectPerLine() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Item> consumer = invocation.getArgument(0);
+            consumer.accept(item1);
+            consumer.accept(item2);
+            return null;
+        }).when(itemService).streamAll(any(Consumer.class));
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/items/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, objectMapper.readValue(lines[0], Item.class).getId());
+        assertEquals(2L, objectMapper.readValue(lines[1], Item.class).getId());
+    }
+
+    @Test
+    void filterItems_ByStatusNot_ReturnsPage() throws Exception {
+        ItemFilter filter = new ItemFilter(null, "PROCESSED", null);
+        when(itemService.findByFilter(filter, 0, 50)).thenReturn(new ItemQueryResult(List.of(item1, item2), 0, 50, 2, 1));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/filter").param("statusNot", "PROCESSED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1L))
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.totalPages").value(1));
+
+        verify(itemService, never()).findAllViews();
+    }
+
+    @Test
+    void filterItems_NoFilterOrConflictingFilters_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/filter"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/filter").param("status", "NEW").param("statusNot", "NEW"))
+                .andExpect(status().isBadRequest());
+
+        verify(itemService, never()).findByFilter(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void countItems_ByEmail_ReturnsCount() throws Exception {
+        when(itemService.countByFilter(new ItemFilter(null, null, "item1@example.com"))).thenReturn(3L);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/filter/count").param("email", "item1@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(3));
+    }
+
+    @Test
+    void searchItems_ReturnsRankedHits() throws Exception {
+        when(itemService.isSearchReady()).thenReturn(true);
+        when(itemService.search("blue chair", 1, 10)).thenReturn(new ItemSearchResult("blue chair", 12, 1, 10,
+                List.of(new ItemSearchResult.Hit(view(item2), 3.5), new ItemSearchResult.Hit(view(item1), 1.25))));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/search").param("q", "blue chair")
+                        .param("page", "1").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(12))
+                .andExpect(jsonPath("$.hits[0].item.id").value(2L))
+                .andExpect(jsonPath("$.hits[0].score").value(3.5))
+                .andExpect(jsonPath("$.hits[1].item.id").value(1L));
+    }
+
+    @Test
+    void searchItems_BlankQueryOrBadPaging_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/search").param("q", "chair").param("size", "0"))
+                .andExpect(status().isBadRequest());
+
+        verify(itemService, never()).search(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void searchItems_IndexNotBuiltYet_ReturnsServiceUnavailable() throws Exception {
+        when(itemService.isSearchReady()).thenReturn(false);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/search").param("q", "chair"))
+                .andExpect(status().isServiceUnavailable());
+
+        verify(itemService, never()).search(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void getAggregates_ReturnsCountsFromService() throws Exception {
+        when(itemService.getAggregates()).thenReturn(Optional.of(new ItemAggregates(Map.of("NEW", 3L, "PROCESSED", 7L),
+                10, 3, Instant.parse("2024-01-01T00:00:00Z"), false)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/aggregates"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.statuses.NEW").value(3))
+                .andExpect(jsonPath("$.total").value(10))
+                .andExpect(jsonPath("$.backlog").value(3))
+                .andExpect(jsonPath("$.stale").value(false));
+    }
+
+    @Test
+    void getAggregates_NotSeededYet_ReturnsServiceUnavailable() throws Exception {
+        when(itemService.getAggregates()).thenReturn(Optional.empty());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/aggregates"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void exportItems_GzipCsv_StreamsAttachment() throws Exception {
+        doAnswer(invocation -> {
+            WritableByteChannel channel = invocation.getArgument(0);
+            channel.write(ByteBuffer.wrap("gzipped".getBytes()));
+            return 1L;
+        }).when(itemTransferService).export(any(), eq(ItemTransferFormat.CSV), eq(true));
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/items/export").param("format", "csv").param("gzip", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"items.csv.gz\""))
+                .andExpect(content().string("gzipped"));
+    }
+
+    @Test
+    void exportItems_UnknownFormat_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void importItems_SomeRowsInvalid_ReturnsMultiStatus() throws Exception {
+        when(itemTransferService.importFrom(any(), eq(ItemTransferFormat.NDJSON), eq(false), eq("restore")))
+                .thenReturn(new ItemImportResult("restore", 9, 1, 0,
+                        List.of(new ItemImportResult.RowError(4, Map.of("email", Item.EMAIL_INVALID)))));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/items/import").param("name", "restore")
+                        .contentType(NDJSON_TYPE).content("{}\n"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.imported").value(9))
+                .andExpect(jsonPath("$.errors[0].line").value(4));
+    }
+
+    @Test
+    void importItems_AlreadyCompleted_ReturnsConflict() throws Exception {
+        when(itemTransferService.importFrom(any(), any(), anyBoolean(), eq("restore")))
+                .thenThrow(new IllegalStateException("Import \"restore\" has already completed"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/items/import").param("name", "restore")
+                        .contentType(NDJSON_TYPE).content("{}\n"))
+                .andExpect(status().isConflict());
     }
 
     @Test
@@ -119,6 +434,58 @@ public class ItemControllerTest {
         verify(itemService, never()).save(any(Item.class));
     }
 
+    @Test
+    void createItem_InvalidCborItem_ReturnsBadRequest() throws Exception {
+        Item invalidItem = new Item(null, " ", "Desc", "NEW", "nope");
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/items")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(new CBORMapper().writeValueAsBytes(invalidItem)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.name").value("Name cannot be blank"))
+                .andExpect(jsonPath("$.email").value("Email must be a valid"));
+
+        verify(itemService, never()).save(any(Item.class));
+    }
+
+    @Test
+    void createItem_InvalidSmileItem_ReturnsBadRequest() throws Exception {
+        Item invalidItem = new Item(null, " ", "Desc", "NEW", "nope");
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/items")
+                        .contentType("application/x-jackson-smile")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(new SmileMapper().writeValueAsBytes(invalidItem)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.name").value("Name cannot be blank"))
+                .andExpect(jsonPath("$.email").value("Email must be a valid"));
+
+        verify(itemService, never()).save(any(Item.class));
+    }
+
+    @Test
+    void createItem_BlankEmail_ReportsBlankNotInvalid() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"n\",\"description\":\"d\",\"status\":\"NEW\",\"email\":\"  \"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.email").value("Email cannot be blank"))
+                .andExpect(jsonPath("$.name").doesNotExist());
+
+        verify(itemService, never()).save(any(Item.class));
+    }
+
+    @Test
+    void createItem_MalformedJson_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": {\"nested\": 1}}"))
+                .andExpect(status().isBadRequest());
+
+        verify(itemService, never()).save(any(Item.class));
+    }
+
     @Test
     void createItem_DatabaseError_ReturnsInternalServerError() throws Exception {
         Item newItem = new Item(null, "New Item", "New Desc", "NEW", "new@example.com");
@@ -135,6 +502,76 @@ public class ItemControllerTest {
     }
 
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void createItems_AllCreated_ReturnsCreated() throws Exception {
+        when(itemService.createAll(any(List.class))).thenReturn(BatchResult.of(List.of(
+                new BatchResult.ItemResult(0, 1L, 201, Map.of()),
+                new BatchResult.ItemResult(1, 2L, 201, Map.of()))));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/items/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(item1, item2))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.succeeded").value(2))
+                .andExpect(jsonPath("$.failed").value(0))
+                .andExpect(jsonPath("$.results[1].id").value(2L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createItems_SomeInvalid_ReturnsMultiStatus() throws Exception {
+        when(itemService.createAll(any(List.class))).thenReturn(BatchResult.of(List.of(
+                new BatchResult.ItemResult(0, 1L, 201, Map.of()),
+                new BatchResult.ItemResult(1, null, 400, Map.of("email", "Email must be a valid")))));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/items/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(item1, item2))))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[1].status").value(400))
+                .andExpect(jsonPath("$.results[1].errors.email").value("Email must be a valid"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createItems_EmptyBatch_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/items/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+
+        verify(itemService, never()).createAll(any(List.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateItems_AllUpdated_ReturnsOk() throws Exception {
+        when(itemService.updateAll(any(List.class))).thenReturn(BatchResult.of(List.of(
+                new BatchResult.ItemResult(0, 1L, 200, Map.of()))));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/items/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(item1))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateItems_SomeNotFound_ReturnsMultiStatus() throws Exception {
+        when(itemService.updateAll(any(List.class))).thenReturn(BatchResult.of(List.of(
+                new BatchResult.ItemResult(0, 1L, 200, Map.of()),
+                new BatchResult.ItemResult(1, 2L, 404, Map.of()))));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/items/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(item1, item2))))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.results[1].status").value(404));
+    }
+
     @Test
     void getItemById_ItemExists_ReturnsOk() throws Exception {
         when(itemService.findById(1L)).thenReturn(Optional.of(item1));
@@ -175,27 +612,31 @@ public class ItemControllerTest {
     @Test
     void updateItem_ItemExists_ReturnsOk() throws Exception {
         Item updatedItem = new Item(null, "Updated Item", "Updated Desc", "UPDATED", "updated@example.com");
-        Item savedItem = new Item(1L, "Updated Item", "Updated Desc", "UPDATED", "updated@example.com");
 
-        when(itemService.findById(1L)).thenReturn(Optional.of(item1));
-        when(itemService.save(any(Item.class))).thenReturn(savedItem);
+        Item stored = new Item(1L, "Updated Item", "Updated Desc", "UPDATED", "updated@example.com", 5L,
+                Instant.parse("2024-01-01T00:00:00Z"));
+        when(itemService.updateById(eq(1L), any(Item.class), isNull()))
+                .thenReturn(new ItemService.UpdateResult(ItemService.WriteResult.DONE, stored));
 
         mockMvc.perform(MockMvcRequestBuilders.put("/api/items/1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(updatedItem)))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"5\""))
                 .andExpect(jsonPath("$.id").value(1L))
-                .andExpect(jsonPath("$.name").value("Updated Item"));
+                .andExpect(jsonPath("$.name").value("Updated Item"))
+                .andExpect(jsonPath("$.version").value(5))
+                .andExpect(jsonPath("$.lastModified").value("2024-01-01T00:00:00Z"));
 
-        verify(itemService, times(1)).findById(1L);
-        verify(itemService, times(1)).save(argThat(item -> item.getId().equals(1L)));
+        verify(itemService, never()).findById(anyLong());
+        verify(itemService, times(1)).updateById(eq(1L), argThat(item -> item.getName().equals("Updated Item")), isNull());
     }
 
     @Test
     void updateItem_ItemNotFound_ReturnsNotFound() throws Exception {
         Item updatedItem = new Item(null, "Updated Item", "Updated Desc", "UPDATED", "updated@example.com");
 
-        when(itemService.findById(999L)).thenReturn(Optional.empty());
+        when(itemService.updateById(eq(999L), any(Item.class), isNull())).thenReturn(new ItemService.UpdateResult(ItemService.WriteResult.NOT_FOUND, null));
 
         mockMvc.perform(MockMvcRequestBuilders.put("/api/items/999")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -203,8 +644,8 @@ public class ItemControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(content().string(""));
 
-        verify(itemService, times(1)).findById(999L);
-        verify(itemService, never()).save(any(Item.class));
+        verify(itemService, times(1)).updateById(eq(999L), any(Item.class), isNull());
+        verify(itemService, never()).findById(anyLong());
     }
 
     @Test
@@ -220,16 +661,58 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.status").value("Status cannot be blank"))
                 .andExpect(jsonPath("$.email").value("Email must be a valid"));
 
-        verify(itemService, never()).findById(anyLong());
-        verify(itemService, never()).save(any(Item.class));
+        verify(itemService, never()).updateById(anyLong(), any(Item.class), any());
+    }
+
+    @Test
+    void updateItem_InvalidCborItem_ReturnsBadRequest() throws Exception {
+        Item invalidItem = new Item(null, " ", "Desc", "NEW", "nope");
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/items/1")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(new CBORMapper().writeValueAsBytes(invalidItem)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.name").value("Name cannot be blank"))
+                .andExpect(jsonPath("$.email").value("Email must be a valid"));
+
+        verify(itemService, never()).updateById(anyLong(), any(Item.class), any());
+    }
+
+    @Test
+    void updateItem_InvalidSmileItem_ReturnsBadRequest() throws Exception {
+        Item invalidItem = new Item(null, " ", "Desc", "NEW", "nope");
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/items/1")
+                        .contentType("application/x-jackson-smile")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(new SmileMapper().writeValueAsBytes(invalidItem)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.name").value("Name cannot be blank"))
+                .andExpect(jsonPath("$.email").value("Email must be a valid"));
+
+        verify(itemService, never()).updateById(anyLong(), any(Item.class), any());
+    }
+
+    @Test
+    void updateItem_ValidCborItem_ReturnsOk() throws Exception {
+        Item stored = new Item(1L, "Chair", "Desc", "NEW", "a@example.com", 2L, Instant.parse("2024-01-01T00:00:00Z"));
+        when(itemService.updateById(eq(1L), any(Item.class), isNull()))
+                .thenReturn(new ItemService.UpdateResult(ItemService.WriteResult.DONE, stored));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/items/1")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(new CBORMapper().writeValueAsBytes(new Item(null, "Chair", "Desc", "NEW", "a@example.com"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(2));
     }
 
     @Test
     void updateItem_DatabaseError_ReturnsInternalServerError() throws Exception {
         Item updatedItem = new Item(null, "Updated Item", "Updated Desc", "UPDATED", "updated@example.com");
 
-        when(itemService.findById(1L)).thenReturn(Optional.of(item1));
-        when(itemService.save(any(Item.class))).thenThrow(new RuntimeException("Database error"));
+        when(itemService.updateById(eq(1L), any(Item.class), isNull())).thenThrow(new RuntimeException("Database error"));
 
         mockMvc.perform(MockMvcRequestBuilders.put("/api/items/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -237,54 +720,122 @@ public class ItemControllerTest {
                 .andExpect(status().isInternalServerError())
                 .andExpect(content().string(""));
 
-        verify(itemService, times(1)).findById(1L);
-        verify(itemService, times(1)).save(any(Item.class));
+        verify(itemService, times(1)).updateById(eq(1L), any(Item.class), isNull());
+    }
+
+    @Test
+    void updateItem_IfMatchCurrentVersion_ReturnsOkWithNewETag() throws Exception {
+        Item updatedItem = new Item(null, "Updated Item", "Updated Desc", "UPDATED", "updated@example.com");
+
+        when(itemService.updateById(eq(1L), any(Item.class), eq(3L))).thenReturn(new ItemService.UpdateResult(ItemService.WriteResult.DONE,
+                new Item(1L, "Updated Item", "Updated Desc", "UPDATED", "updated@example.com", 4L, Instant.now())));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/items/1")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updatedItem)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
+    @Test
+    void updateItem_IfMatchStaleVersion_ReturnsPreconditionFailed() throws Exception {
+        Item updatedItem = new Item(null, "Updated Item", "Updated Desc", "UPDATED", "updated@example.com");
+
+        when(itemService.updateById(eq(1L), any(Item.class), eq(2L)))
+                .thenReturn(new ItemService.UpdateResult(ItemService.WriteResult.VERSION_MISMATCH, null));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/items/1")
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updatedItem)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void updateItem_MalformedIfMatch_ReturnsBadRequest() throws Exception {
+        Item updatedItem = new Item(null, "Updated Item", "Updated Desc", "UPDATED", "updated@example.com");
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/items/1")
+                        .header("If-Match", "\"abc\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updatedItem)))
+                .andExpect(status().isBadRequest());
+
+        verify(itemService, never()).updateById(anyLong(), any(Item.class), any());
+    }
+
+    @Test
+    void getItemById_ItemHasVersion_ReturnsETag() throws Exception {
+        Item versioned = new Item(1L, "Item 1", "Description 1", "NEW", "item1@example.com");
+        versioned.setVersion(7L);
+        when(itemService.findById(1L)).thenReturn(Optional.of(versioned));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"7\""));
     }
 
     @Test
     void deleteItem_ItemExists_ReturnsNoContent() throws Exception {
-        when(itemService.findById(1L)).thenReturn(Optional.of(item1));
-        doNothing().when(itemService).deleteById(1L);
+        when(itemService.deleteById(1L, null)).thenReturn(ItemService.WriteResult.DONE);
 
         mockMvc.perform(MockMvcRequestBuilders.delete("/api/items/1")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNoContent())
                 .andExpect(content().string(""));
 
-        verify(itemService, times(1)).findById(1L);
-        verify(itemService, times(1)).deleteById(1L);
+        verify(itemService, never()).findById(anyLong());
+        verify(itemService, times(1)).deleteById(1L, null);
     }
 
     @Test
     void deleteItem_ItemNotFound_ReturnsNotFound() throws Exception {
-        when(itemService.findById(999L)).thenReturn(Optional.empty());
+        when(itemService.deleteById(999L, null)).thenReturn(ItemService.WriteResult.NOT_FOUND);
 
         mockMvc.perform(MockMvcRequestBuilders.delete("/api/items/999")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound())
                 .andExpect(content().string(""));
 
-        verify(itemService, times(1)).findById(999L);
-        verify(itemService, never()).deleteById(anyLong());
+        verify(itemService, times(1)).deleteById(999L, null);
+    }
+
+    @Test
+    void deleteItem_IfMatchStaleVersion_ReturnsPreconditionFailed() throws Exception {
+        when(itemService.deleteById(1L, 2L)).thenReturn(ItemService.WriteResult.VERSION_MISMATCH);
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/items/1")
+                        .header("If-Match", "W/\"2\""))
+                .andExpect(status().isPreconditionFailed());
     }
 
     @Test
     void deleteItem_DatabaseError_ReturnsInternalServerError() throws Exception {
-        when(itemService.findById(1L)).thenThrow(new RuntimeException("Database error"));
+        when(itemService.deleteById(1L, null)).thenThrow(new RuntimeException("Database error"));
 
         mockMvc.perform(MockMvcRequestBuilders.delete("/api/items/1")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isInternalServerError())
                 .andExpect(content().string(""));
 
-        verify(itemService, times(1)).findById(1L);
-        verify(itemService, never()).deleteById(anyLong());
+        verify(itemService, times(1)).deleteById(1L, null);
+    }
+
+    // a run of the given mode that already finished with the given items
+    private ProcessingJob completedRun(ProcessingJob.Mode mode, List<Item> items) {
+        ProcessingJob run = new ProcessingJob(true, mode, null);
+        run.recordProcessed(items.size());
+        run.finish(ProcessingJob.State.COMPLETED, null);
+        run.getResult().complete(items);
+        return run;
     }
 
     @Test
     void processItems_Success_ReturnsOk() throws Exception {
         List<Item> processedItems = Arrays.asList(item1, item2);
-        when(itemService.processItemsAsync()).thenReturn(CompletableFuture.completedFuture(processedItems));
+        when(itemService.startCollectingRun(ProcessingJob.Mode.FULL)).thenReturn(completedRun(ProcessingJob.Mode.FULL, processedItems));
 
         MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/items/process")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -293,19 +844,40 @@ public class ItemControllerTest {
 
         mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
+                .andExpect(header().string("X-Items-Processed", "2"))
+                .andExpect(header().string("X-Items-Failed", "0"))
                 .andExpect(jsonPath("$[0].id").value(1L))
                 .andExpect(jsonPath("$[0].name").value("Item 1"))
                 .andExpect(jsonPath("$[1].id").value(2L))
                 .andExpect(jsonPath("$[1].name").value("Item 2"));
 
-        verify(itemService, times(1)).processItemsAsync();
+        verify(itemService, times(1)).startCollectingRun(ProcessingJob.Mode.FULL);
+    }
+
+    @Test
+    void processItems_SomeItemsFailed_ReturnsMultiStatusWithCounts() throws Exception {
+        ProcessingJob run = completedRun(ProcessingJob.Mode.FULL, List.of(item1));
+        run.recordFailed(1);
+        run.recordSkipped(2);
+        when(itemService.startCollectingRun(ProcessingJob.Mode.FULL)).thenReturn(run);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/items/process"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andExpect(status().isMultiStatus())
+                .andExpect(header().string("X-Items-Processed", "1"))
+                .andExpect(header().string("X-Items-Failed", "1"))
+                .andExpect(header().string("X-Items-Skipped", "2"))
+                .andExpect(jsonPath("$.length()").value(1));
     }
 
     @Test
     void processItems_AsyncFailure_ReturnsInternalServerError() throws Exception {
-        CompletableFuture<List<Item>> failedFuture = new CompletableFuture<>();
-        failedFuture.completeExceptionally(new RuntimeException("Processing error"));
-        when(itemService.processItemsAsync()).thenReturn(failedFuture);
+        ProcessingJob run = new ProcessingJob(true);
+        run.getResult().completeExceptionally(new RuntimeException("Processing error"));
+        when(itemService.startCollectingRun(ProcessingJob.Mode.FULL)).thenReturn(run);
 
         MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/items/process")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -316,6 +888,234 @@ public class ItemControllerTest {
                 .andExpect(status().isInternalServerError())
                 .andExpect(content().string(""));
 
-        verify(itemService, times(1)).processItemsAsync();
+        verify(itemService, times(1)).startCollectingRun(ProcessingJob.Mode.FULL);
+    }
+
+    @Test
+    void processItems_Incremental_ProcessesChangedItemsOnly() throws Exception {
+        when(itemService.startCollectingRun(ProcessingJob.Mode.INCREMENTAL))
+                .thenReturn(completedRun(ProcessingJob.Mode.INCREMENTAL, List.of(item2)));
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/items/process").param("incremental", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(2L));
+
+        verify(itemService, times(1)).startCollectingRun(ProcessingJob.Mode.INCREMENTAL);
+        verify(itemService, never()).startCollectingRun(ProcessingJob.Mode.FULL);
+    }
+
+    @Test
+    void getProcessingExecutorStats_ReturnsStats() throws Exception {
+        when(itemService.getExecutorStats()).thenReturn(
+                new ItemProcessingExecutor.ExecutorStats("item-processing", 2, 4, 1, 3, 97, 10L, 0L, 0L, false));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/process/executor"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("item-processing"))
+                .andExpect(jsonPath("$.activeThreads").value(1))
+                .andExpect(jsonPath("$.queueDepth").value(3))
+                .andExpect(jsonPath("$.completedTasks").value(10));
+    }
+
+    private ProcessingJob.Status jobStatus(ProcessingJob.State state) {
+        return new ProcessingJob.Status("job-1", state, false, 100, 40, 0, 0, 20.0, 3L,
+                Instant.parse("2025-01-01T10:00:00Z"), null, null);
+    }
+
+    @Test
+    void startProcessingJob_ReturnsAcceptedWithJobId() throws Exception {
+        when(processingJobService.startJob(ProcessingJob.Mode.FULL)).thenReturn(jobStatus(ProcessingJob.State.RUNNING));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/items/process"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/items/process/job-1"))
+                .andExpect(jsonPath("$.jobId").value("job-1"))
+                .andExpect(jsonPath("$.state").value("RUNNING"));
+
+        verify(processingJobService, times(1)).startJob(ProcessingJob.Mode.FULL);
+    }
+
+    @Test
+    void startProcessingJob_Incremental_StartsIncrementalJob() throws Exception {
+        when(processingJobService.startJob(ProcessingJob.Mode.INCREMENTAL)).thenReturn(jobStatus(ProcessingJob.State.RUNNING));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/items/process").param("incremental", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId").value("job-1"));
+
+        verify(processingJobService, times(1)).startJob(ProcessingJob.Mode.INCREMENTAL);
+    }
+
+    @Test
+    void reprocessDeadLetters_StartsDeadLetterJob() throws Exception {
+        when(processingJobService.startJob(ProcessingJob.Mode.DEAD_LETTERS)).thenReturn(jobStatus(ProcessingJob.State.RUNNING));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/items/process/dead-letters"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/items/process/job-1"));
+
+        verify(processingJobService, times(1)).startJob(ProcessingJob.Mode.DEAD_LETTERS);
+    }
+
+    @Test
+    void getDeadLetters_ReturnsPage() throws Exception {
+        ItemDeadLetter deadLetter = new ItemDeadLetter(2L);
+        deadLetter.setCause("java.lang.IllegalStateException: boom");
+        deadLetter.setAttempts(3);
+        when(itemService.findDeadLetters(1L, 10)).thenReturn(List.of(deadLetter));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/process/dead-letters").param("limit", "10").param("after", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].itemId").value(2L))
+                .andExpect(jsonPath("$[0].attempts").value(3))
+                .andExpect(jsonPath("$[0].cause").value("java.lang.IllegalStateException: boom"));
+    }
+
+    @Test
+    void getProcessingJob_JobExists_ReturnsProgress() throws Exception {
+        when(processingJobService.getJobStatus("job-1")).thenReturn(Optional.of(jobStatus(ProcessingJob.State.RUNNING)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/process/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(100))
+                .andExpect(jsonPath("$.processed").value(40))
+                .andExpect(jsonPath("$.failed").value(0))
+                .andExpect(jsonPath("$.itemsPerSecond").value(20.0))
+                .andExpect(jsonPath("$.etaSeconds").value(3));
+    }
+
+    @Test
+    void getProcessingJob_JobNotFound_ReturnsNotFound() throws Exception {
+        when(processingJobService.getJobStatus("missing")).thenReturn(Optional.empty());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/process/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void cancelProcessingJob_RunningJob_ReturnsAccepted() throws Exception {
+        when(processingJobService.cancelJob("job-1")).thenReturn(Optional.of(jobStatus(ProcessingJob.State.RUNNING)));
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/items/process/job-1"))
+                .andExpect(status().isAccepted());
+
+        verify(processingJobService, times(1)).cancelJob("job-1");
+    }
+
+    @Test
+    void cancelProcessingJob_FinishedJob_ReturnsConflict() throws Exception {
+        when(processingJobService.cancelJob("job-1")).thenReturn(Optional.of(jobStatus(ProcessingJob.State.COMPLETED)));
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/items/process/job-1"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void cancelProcessingJob_JobNotFound_ReturnsNotFound() throws Exception {
+        when(processingJobService.cancelJob("missing")).thenReturn(Optional.empty());
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/items/process/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamProcessing_SendsChunksAndSummary() throws Exception {
+        ProcessingJob job = new ProcessingJob(false);
+        when(itemService.startStreamingRun(any(Consumer.class))).thenAnswer(invocation -> {
+            Consumer<List<Item>> listener = invocation.getArgument(0);
+            listener.accept(List.of(item1));
+            listener.accept(List.of(item2));
+            job.recordProcessed(2);
+            job.finish(ProcessingJob.State.COMPLETED, null);
+            job.getResult().complete(List.of());
+            return job;
+        });
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/items/process/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(body.contains("event:items\ndata:[{\"id\":1"));
+        assertTrue(body.contains("event:items\ndata:[{\"id\":2"));
+        assertTrue(body.contains("event:summary\ndata:{\"jobId\":\"" + job.getId() + "\""));
+        assertTrue(body.contains("\"processed\":2"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamProcessing_RunFails_SendsErrorEvent() throws Exception {
+        ProcessingJob job = new ProcessingJob(false);
+        when(itemService.startStreamingRun(any(Consumer.class))).thenAnswer(invocation -> {
+            job.finish(ProcessingJob.State.FAILED, "Processing error");
+            job.getResult().completeExceptionally(new RuntimeException("Processing error"));
+            return job;
+        });
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/items/process/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(body.contains("event:error"));
+        assertTrue(body.contains("\"state\":\"FAILED\""));
+    }
+
+    @Test
+    void processItemsBulk_DefaultsToProcessed_ReturnsAffectedCount() throws Exception {
+        when(itemService.transitionStatus(null, "PROCESSED", null))
+                .thenReturn(new BulkUpdateResult(null, "PROCESSED", 42, 1, 5));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/items/process/bulk"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.targetStatus").value("PROCESSED"))
+                .andExpect(jsonPath("$.affected").value(42))
+                .andExpect(jsonPath("$.partitions").value(1));
+    }
+
+    @Test
+    void processItemsBulk_WithSourceAndPartitions_PassesThem() throws Exception {
+        when(itemService.transitionStatus("NEW", "DONE", 1000))
+                .thenReturn(new BulkUpdateResult("NEW", "DONE", 10, 3, 5));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/items/process/bulk")
+                        .param("status", "DONE")
+                        .param("from", "NEW")
+                        .param("partitionSize", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(10));
+
+        verify(itemService, times(1)).transitionStatus("NEW", "DONE", 1000);
+    }
+
+    @Test
+    void processItemsBulk_InvalidPartitionSize_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/items/process/bulk").param("partitionSize", "0"))
+                .andExpect(status().isBadRequest());
+
+        verify(itemService, never()).transitionStatus(any(), any(), any());
+    }
+
+    @Test
+    void getCacheStats_ReturnsStats() throws Exception {
+        when(itemService.getCacheStats()).thenReturn(new ItemCache.CacheStats(true, 5, 100, 30, 10, 0.75, 1, 2, 3));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits").value(30))
+                .andExpect(jsonPath("$.misses").value(10))
+                .andExpect(jsonPath("$.hitRatio").value(0.75))
+                .andExpect(jsonPath("$.evictions").value(1));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,116 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import javax.sql.DataSource;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class ItemProcessingExecutorTest {
+
+    private ItemProcessingExecutor executor(boolean virtualThreads, int maxConcurrency) {
+        ItemProcessingProperties properties = new ItemProcessingProperties();
+        properties.getExecutor().setVirtualThreads(virtualThreads);
+        properties.getExecutor().setVirtualThreadsMaxConcurrency(maxConcurrency);
+        return new ItemProcessingExecutor(properties, new StaticListableBeanFactory().getBeanProvider(DataSource.class));
+    }
+
+    // one thread and no queue, so a second task submitted while the first runs does not fit
+    private ItemProcessingExecutor saturatedPool(ItemProcessingProperties.RejectionPolicy policy) {
+        ItemProcessingProperties properties = new ItemProcessingProperties();
+        properties.getExecutor().setCorePoolSize(1);
+        properties.getExecutor().setMaxPoolSize(1);
+        properties.getExecutor().setQueueCapacity(0);
+        properties.getExecutor().setRejectionPolicy(policy);
+        return new ItemProcessingExecutor(properties, new StaticListableBeanFactory().getBeanProvider(DataSource.class));
+    }
+
+    // occupies the only thread until the returned latch is counted down
+    private static CountDownLatch occupy(ItemProcessingExecutor executor) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.getExecutor().execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        return release;
+    }
+
+    @Test
+    void callerRuns_PoolFull_CountsSaturationNotRejection() throws Exception {
+        ItemProcessingExecutor executor = saturatedPool(ItemProcessingProperties.RejectionPolicy.CALLER_RUNS);
+        CountDownLatch release = occupy(executor);
+        AtomicInteger ran = new AtomicInteger();
+
+        executor.getExecutor().execute(ran::incrementAndGet);
+
+        assertEquals(1, ran.get());
+        assertEquals(0, executor.getStats().rejectedTasks());
+        assertEquals(1, executor.getStats().saturatedTasks());
+        release.countDown();
+        executor.destroy();
+    }
+
+    @Test
+    void abort_PoolFull_CountsRejection() throws Exception {
+        ItemProcessingExecutor executor = saturatedPool(ItemProcessingProperties.RejectionPolicy.ABORT);
+        CountDownLatch release = occupy(executor);
+
+        assertThrows(RejectedExecutionException.class, () -> executor.getExecutor().execute(() -> {
+        }));
+
+        assertEquals(1, executor.getStats().rejectedTasks());
+        assertEquals(0, executor.getStats().saturatedTasks());
+        release.countDown();
+        executor.destroy();
+    }
+
+    @Test
+    void virtualThreads_UnsupportedRuntime_FallsBackToPool() throws Exception {
+        assumeTrue(!VirtualThreadChunks.isSupported());
+        ItemProcessingExecutor executor = executor(true, 0);
+
+        assertFalse(executor.isVirtualThreads());
+        assertFalse(executor.getStats().virtualThreads());
+        executor.destroy();
+    }
+
+    @Test
+    void virtualThreads_Supported_RunsAtMostLimitChunksAtOnce() throws Exception {
+        assumeTrue(VirtualThreadChunks.isSupported());
+        ItemProcessingExecutor executor = executor(true, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(10);
+
+        for (int i = 0; i < 10; i++) {
+            executor.getExecutor().execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(executor.isVirtualThreads());
+        assertEquals(2, maxRunning.get());
+        executor.destroy();
+        assertEquals(10, executor.getStats().completedTasks());
+    }
+}
@@ -0,0 +1,88 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemServiceCoalescingTest {
+
+    @Mock
+    private ItemProcessor itemProcessor;
+
+    @InjectMocks
+    private ItemService itemService;
+
+    private final Item item = new Item(1L, "Item 1", "Description 1", "PROCESSED", "item1@example.com");
+
+    @Test
+    void processItemsAsync_RunInFlight_CallersShareIt() throws Exception {
+        CompletableFuture<List<Item>> pipeline = new CompletableFuture<>();
+        when(itemProcessor.process(any(ProcessingJob.class))).thenReturn(pipeline);
+
+        CompletableFuture<List<Item>> first = itemService.processItemsAsync();
+        CompletableFuture<List<Item>> second = itemService.processItemsAsync();
+
+        assertSame(first, second);
+        verify(itemProcessor, times(1)).process(any(ProcessingJob.class));
+
+        pipeline.complete(List.of(item));
+        assertEquals(List.of(item), second.get());
+    }
+
+    @Test
+    void processItemsAsync_PreviousRunFinished_StartsNewRun() throws Exception {
+        when(itemProcessor.process(any(ProcessingJob.class)))
+                .thenReturn(CompletableFuture.completedFuture(List.of(item)));
+
+        CompletableFuture<List<Item>> first = itemService.processItemsAsync();
+        CompletableFuture<List<Item>> second = itemService.processItemsAsync();
+
+        assertNotSame(first, second);
+        verify(itemProcessor, times(2)).process(any(ProcessingJob.class));
+    }
+
+    @Test
+    void startProcessingJob_DoesNotJoinResultCollectingRun() {
+        when(itemProcessor.process(any(ProcessingJob.class))).thenReturn(new CompletableFuture<>());
+
+        itemService.processItemsAsync();
+        ProcessingJob first = itemService.startProcessingJob();
+        ProcessingJob second = itemService.startProcessingJob();
+
+        assertSame(first, second);
+        assertFalse(first.isCollectResults());
+        verify(itemProcessor, times(2)).process(any(ProcessingJob.class));
+    }
+
+    @Test
+    void startProcessingJob_RunCancelled_StartsNewRun() {
+        when(itemProcessor.process(any(ProcessingJob.class))).thenReturn(new CompletableFuture<>());
+
+        ProcessingJob first = itemService.startProcessingJob();
+        first.cancel();
+        ProcessingJob second = itemService.startProcessingJob();
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void processItemsAsync_PipelineFails_FailsSharedFuture() {
+        CompletableFuture<List<Item>> pipeline = new CompletableFuture<>();
+        when(itemProcessor.process(any(ProcessingJob.class))).thenReturn(pipeline);
+
+        CompletableFuture<List<Item>> result = itemService.processItemsAsync();
+        pipeline.completeExceptionally(new RuntimeException("Processing error"));
+
+        assertTrue(result.isCompletedExceptionally());
+    }
+}
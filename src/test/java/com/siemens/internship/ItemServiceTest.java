@@ -0,0 +1,578 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.siemens.internship.TestItems.createItems;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "items.processing.chunk-size=3",
+        "items.processing.max-in-flight-chunks=2",
+        "items.processing.watermark-overlap=0s",
+        "items.processing.retry.initial-backoff=5ms",
+        // the status counters are only recounted when a test asks for it
+        "items.aggregates.stale-check-interval=1h"
+})
+public class ItemServiceTest {
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemProcessor itemProcessor;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ProcessingWatermarkRepository watermarkRepository;
+
+    @Autowired
+    private ItemDeadLetterRepository deadLetterRepository;
+
+    @Autowired
+    private ItemStatusAggregates statusAggregates;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository.deleteAll();
+        watermarkRepository.deleteAll();
+        deadLetterRepository.deleteAll();
+    }
+
+    @Test
+    void processItemsAsync_SeveralChunks_ProcessesEveryItem() throws Exception {
+        createItems(itemRepository, 10);
+
+        List<Item> processed = itemService.processItemsAsync().get();
+
+        assertEquals(10, processed.size());
+        assertEquals(10, processed.stream().map(Item::getId).distinct().count());
+        assertTrue(processed.stream().allMatch(item -> "PROCESSED".equals(item.getStatus())));
+        assertTrue(itemRepository.findAll().stream().allMatch(item -> "PROCESSED".equals(item.getStatus())));
+    }
+
+    @Test
+    void processItemsAsync_EmptyTable_ReturnsEmptyList() throws Exception {
+        List<Item> processed = itemService.processItemsAsync().get();
+
+        assertTrue(processed.isEmpty());
+    }
+
+    @Test
+    void processItemsAsync_RunsChunksOnDedicatedExecutor() throws Exception {
+        createItems(itemRepository, 7);
+
+        long completedBefore = itemService.getExecutorStats().completedTasks();
+        itemService.processItemsAsync().get();
+
+        // the pool updates its completed count right after a task returns, which can be
+        // slightly after the chunk future has completed
+        ItemProcessingExecutor.ExecutorStats stats = itemService.getExecutorStats();
+        for (int i = 0; i < 50 && stats.completedTasks() - completedBefore < 3; i++) {
+            Thread.sleep(20);
+            stats = itemService.getExecutorStats();
+        }
+        assertEquals(ItemProcessingExecutor.NAME, stats.name());
+        assertEquals(3, stats.completedTasks() - completedBefore);
+        assertEquals(0, stats.queueDepth());
+    }
+
+    @Test
+    void process_Job_TracksProgressWithoutKeepingResults() throws Exception {
+        createItems(itemRepository, 8);
+        ProcessingJob job = new ProcessingJob(false);
+
+        List<Item> processed = itemProcessor.process(job).get();
+
+        ProcessingJob.Status status = job.getStatus();
+        assertTrue(processed.isEmpty());
+        assertEquals(ProcessingJob.State.COMPLETED, status.state());
+        assertEquals(8, status.total());
+        assertEquals(8, status.processed());
+        assertEquals(0, status.failed());
+        assertNotNull(status.finishedAt());
+    }
+
+    @Test
+    void process_CancelledJob_StopsReadingChunks() throws Exception {
+        createItems(itemRepository, 8);
+        ProcessingJob job = new ProcessingJob(true);
+        job.cancel();
+
+        List<Item> processed = itemProcessor.process(job).get();
+
+        assertTrue(processed.isEmpty());
+        assertEquals(ProcessingJob.State.CANCELLED, job.getStatus().state());
+        assertTrue(itemRepository.findAll().stream().allMatch(item -> "NEW".equals(item.getStatus())));
+    }
+
+    @Test
+    void startProcessingJob_CompletesJob() throws Exception {
+        createItems(itemRepository, 5);
+
+        ProcessingJob job = itemService.startProcessingJob();
+        job.getResult().get();
+
+        assertEquals(ProcessingJob.State.COMPLETED, job.getStatus().state());
+        assertEquals(5, job.getStatus().processed());
+    }
+
+    @Test
+    void processChangedItemsAsync_NoWatermark_ProcessesEveryItemAndSavesWatermark() throws Exception {
+        createItems(itemRepository, 4);
+
+        List<Item> processed = itemService.processChangedItemsAsync().get();
+
+        assertEquals(4, processed.size());
+        assertNotNull(itemProcessor.currentWatermark());
+    }
+
+    @Test
+    void processChangedItemsAsync_AfterRun_ProcessesOnlyItemsChangedSince() throws Exception {
+        List<Item> items = createItems(itemRepository, 5);
+        itemService.processItemsAsync().get();
+
+        // processing itself doesn't count as a change
+        assertTrue(itemService.processChangedItemsAsync().get().isEmpty());
+
+        Item changed = items.get(3);
+        changed.setName("Changed");
+        itemService.updateById(changed.getId(), changed, null);
+        Item created = itemService.save(new Item(null, "New item", "Description", "NEW", "new@example.com"));
+
+        List<Item> processed = itemService.processChangedItemsAsync().get();
+
+        assertEquals(List.of(changed.getId(), created.getId()), processed.stream().map(Item::getId).toList());
+        assertEquals("PROCESSED", itemRepository.findById(created.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void processChangedItemsAsync_TiesAcrossPages_PagesByLastModifiedThenId() throws Exception {
+        createItems(itemRepository, 7);
+        itemService.processItemsAsync().get();
+        List<Item> items = itemRepository.findAll(Sort.by("id"));
+        Instant watermark = itemProcessor.currentWatermark();
+        // four changes at the same time, so the tie spans two pages of 3, and two later ones with lower ids
+        Instant first = watermark.plus(1, ChronoUnit.MILLIS);
+        Instant second = watermark.plus(2, ChronoUnit.MILLIS);
+        List<Item> changed = new ArrayList<>();
+        for (int i : new int[]{2, 4, 5, 6}) {
+            items.get(i).setLastModified(first);
+            changed.add(items.get(i));
+        }
+        for (int i : new int[]{1, 3}) {
+            items.get(i).setLastModified(second);
+            changed.add(items.get(i));
+        }
+        itemRepository.saveAll(changed);
+
+        List<Long> processed = itemService.processChangedItemsAsync().get().stream().map(Item::getId).toList();
+
+        // chunk by chunk in keyset order; within a chunk the items come back in id order
+        List<Long> expected = changed.stream().map(Item::getId).toList();
+        assertEquals(6, processed.size());
+        assertEquals(Set.copyOf(expected.subList(0, 3)), Set.copyOf(processed.subList(0, 3)));
+        assertEquals(Set.copyOf(expected.subList(3, 6)), Set.copyOf(processed.subList(3, 6)));
+    }
+
+    @Test
+    void processChangedItemsAsync_CancelledRun_KeepsWatermark() throws Exception {
+        createItems(itemRepository, 3);
+        itemService.processItemsAsync().get();
+        Instant watermark = itemProcessor.currentWatermark();
+
+        ProcessingJob job = new ProcessingJob(false, ProcessingJob.Mode.INCREMENTAL, null);
+        job.cancel();
+        itemProcessor.process(job).get();
+
+        assertEquals(ProcessingJob.State.CANCELLED, job.getStatus().state());
+        assertEquals(watermark, itemProcessor.currentWatermark());
+    }
+
+    // stores an email that the entity validation rejects, so saving the item while processing it fails
+    private void breakItem(Item item) {
+        itemService.updateById(item.getId(), new Item(null, item.getName(), item.getDescription(), "NEW", "not-an-email"), null);
+    }
+
+    @Test
+    void process_ItemKeepsFailing_OtherItemsProcessedAndFailureDeadLettered() throws Exception {
+        List<Item> items = createItems(itemRepository, 5);
+        Item broken = items.get(2);
+        breakItem(broken);
+
+        ProcessingJob run = itemService.startCollectingRun(ProcessingJob.Mode.FULL);
+        List<Item> processed = run.getResult().get();
+
+        assertEquals(4, processed.size());
+        assertEquals(ProcessingJob.State.COMPLETED, run.getStatus().state());
+        assertEquals(4, run.getStatus().processed());
+        assertEquals(1, run.getStatus().failed());
+        assertEquals("NEW", itemRepository.findById(broken.getId()).orElseThrow().getStatus());
+
+        ItemDeadLetter deadLetter = deadLetterRepository.findByItemId(broken.getId()).orElseThrow();
+        assertEquals(3, deadLetter.getAttempts());
+        assertTrue(deadLetter.getCause().contains("ConstraintViolationException"));
+    }
+
+    @Test
+    void startProcessingJob_DeadLetters_RetriesOnlyFailures() throws Exception {
+        List<Item> items = createItems(itemRepository, 4);
+        Item broken = items.get(1);
+        breakItem(broken);
+        itemService.processItemsAsync().get();
+        // an item that failed and was deleted afterwards
+        ItemDeadLetter gone = new ItemDeadLetter(Long.MAX_VALUE);
+        gone.setAttempts(3);
+        deadLetterRepository.save(gone);
+
+        itemService.updateById(broken.getId(), new Item(null, "Fixed", "Description", "NEW", "fixed@example.com"), null);
+        ProcessingJob job = itemService.startProcessingJob(ProcessingJob.Mode.DEAD_LETTERS);
+        job.getResult().get();
+
+        assertEquals(2, job.getStatus().total());
+        assertEquals(1, job.getStatus().processed());
+        assertEquals(1, job.getStatus().skipped());
+        assertEquals(0, job.getStatus().failed());
+        assertEquals("PROCESSED", itemRepository.findById(broken.getId()).orElseThrow().getStatus());
+        assertEquals(0, deadLetterRepository.count());
+    }
+
+    @Test
+    void findAllViews_ReturnsEveryItemInIdOrder() {
+        List<Item> items = createItems(itemRepository, 3);
+
+        List<ItemView> views = itemService.findAllViews();
+
+        assertEquals(items.stream().map(Item::getId).toList(), views.stream().map(ItemView::id).toList());
+        assertEquals("item1@example.com", views.get(1).email());
+        assertNotNull(views.get(1).lastModified());
+    }
+
+    @Test
+    void findFields_SelectsOnlyRequestedFieldsAndPages() {
+        List<Item> items = createItems(itemRepository, 3);
+
+        ItemPage<Map<String, Object>> first = itemService.findFields(List.of("status", "name"), null, 2);
+        ItemPage<Map<String, Object>> rest = itemService.findFields(List.of("status", "name"), first.nextCursor(), 2);
+
+        assertEquals(List.of("status", "name"), List.copyOf(first.items().get(0).keySet()));
+        assertEquals("Item 0", first.items().get(0).get("name"));
+        assertEquals(items.get(1).getId(), first.nextCursor());
+        assertEquals(1, rest.items().size());
+        assertNull(rest.nextCursor());
+        assertEquals(3, itemService.findFields(List.of("id"), null, null).items().size());
+    }
+
+    @Test
+    void findPage_WalksTableWithCursor() {
+        List<Item> items = createItems(itemRepository, 5);
+
+        ItemPage<Item> first = itemService.findPage(null, 2);
+        ItemPage<Item> second = itemService.findPage(first.nextCursor(), 2);
+        ItemPage<Item> last = itemService.findPage(second.nextCursor(), 2);
+
+        assertEquals(List.of(items.get(0).getId(), items.get(1).getId()), first.items().stream().map(Item::getId).toList());
+        assertEquals(List.of(items.get(2).getId(), items.get(3).getId()), second.items().stream().map(Item::getId).toList());
+        assertEquals(List.of(items.get(4).getId()), last.items().stream().map(Item::getId).toList());
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    void streamAll_VisitsEveryItemInIdOrder() {
+        List<Item> items = createItems(itemRepository, 4);
+        List<Long> visited = new ArrayList<>();
+
+        itemService.streamAll(item -> visited.add(item.getId()));
+
+        assertEquals(items.stream().map(Item::getId).toList(), visited);
+    }
+
+    @Test
+    void startStreamingRun_ReportsEveryChunk() throws Exception {
+        createItems(itemRepository, 7);
+        List<Long> streamed = Collections.synchronizedList(new ArrayList<>());
+
+        ProcessingJob run = itemService.startStreamingRun(items -> items.forEach(item -> streamed.add(item.getId())));
+        List<Item> result = run.getResult().get();
+
+        assertTrue(result.isEmpty());
+        assertEquals(7, streamed.size());
+        assertEquals(7, run.getStatus().processed());
+    }
+
+    @Test
+    void startStreamingRun_ListenerFails_CancelsRun() throws Exception {
+        createItems(itemRepository, 9);
+
+        ProcessingJob run = itemService.startStreamingRun(items -> {
+            throw new IllegalStateException("client went away");
+        });
+        run.getResult().get();
+
+        assertEquals(ProcessingJob.State.CANCELLED, run.getStatus().state());
+        assertTrue(run.getStatus().processed() < 9);
+    }
+
+    @Test
+    void transitionStatus_SingleStatement_UpdatesAllOtherStatuses() {
+        List<Item> items = createItems(itemRepository, 5);
+        items.get(0).setStatus("PROCESSED");
+        itemRepository.save(items.get(0));
+
+        BulkUpdateResult result = itemService.transitionStatus(null, "PROCESSED", null);
+
+        assertEquals(4, result.affected());
+        assertEquals(1, result.partitions());
+        assertTrue(itemRepository.findAll().stream().allMatch(item -> "PROCESSED".equals(item.getStatus())));
+    }
+
+    @Test
+    void transitionStatus_Partitioned_OnlyTouchesSourceStatus() {
+        List<Item> items = createItems(itemRepository, 7);
+        items.get(3).setStatus("ON_HOLD");
+        itemRepository.save(items.get(3));
+
+        BulkUpdateResult result = itemService.transitionStatus("NEW", "PROCESSED", 3);
+
+        assertEquals(6, result.affected());
+        assertEquals(3, result.partitions());
+        assertEquals("ON_HOLD", itemRepository.findById(items.get(3).getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void findById_CachedUntilSaved() {
+        Item item = createItems(itemRepository, 1).get(0);
+        long hitsBefore = itemService.getCacheStats().hits();
+
+        itemService.findById(item.getId());
+        Item cached = itemService.findById(item.getId()).orElseThrow();
+        assertEquals(hitsBefore + 1, itemService.getCacheStats().hits());
+
+        cached.setName("Renamed");
+        itemService.save(cached);
+
+        assertEquals("Renamed", itemService.findById(item.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void findById_DeletedItem_IsNotServedFromCache() {
+        Item item = createItems(itemRepository, 1).get(0);
+        itemService.findById(item.getId());
+
+        itemService.deleteById(item.getId(), null);
+
+        assertTrue(itemService.findById(item.getId()).isEmpty());
+    }
+
+    @Test
+    void createAll_InvalidElement_OnlyThatElementFails() {
+        List<Item> batch = List.of(
+                new Item(999L, "Item A", "Description A", "NEW", "a@example.com"),
+                new Item(null, "", "Description B", "NEW", "b@example.com"),
+                new Item(null, "Item C", "Description C", "NEW", "c@example.com"));
+
+        BatchResult result = itemService.createAll(batch);
+
+        assertEquals(2, result.succeeded());
+        assertEquals(1, result.failed());
+        assertEquals(201, result.results().get(0).status());
+        assertNotEquals(999L, result.results().get(0).id());
+        assertEquals(400, result.results().get(1).status());
+        assertEquals("Name cannot be blank", result.results().get(1).errors().get("name"));
+        assertEquals(201, result.results().get(2).status());
+        assertEquals(2, itemRepository.count());
+    }
+
+    @Test
+    void updateAll_ReportsNotFoundAndMissingIds() {
+        List<Item> items = createItems(itemRepository, 2);
+        itemService.findById(items.get(0).getId());
+        List<Item> batch = List.of(
+                new Item(items.get(0).getId(), "Updated 0", "Description 0", "DONE", "item0@example.com"),
+                new Item(-1L, "Updated", "Description", "DONE", "x@example.com"),
+                new Item(null, "Updated", "Description", "DONE", "y@example.com"),
+                new Item(items.get(1).getId(), "Updated 1", "Description 1", "DONE", "item1@example.com"));
+
+        BatchResult result = itemService.updateAll(batch);
+
+        assertEquals(List.of(200, 404, 400, 200), result.results().stream().map(BatchResult.ItemResult::status).toList());
+        assertEquals("Id is required for an update", result.results().get(2).errors().get("id"));
+        assertEquals("Updated 0", itemService.findById(items.get(0).getId()).orElseThrow().getName());
+        assertEquals("DONE", itemRepository.findById(items.get(1).getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void updateById_MatchingVersion_UpdatesAndBumpsVersion() {
+        Item item = createItems(itemRepository, 1).get(0);
+        Item changes = new Item(null, "Renamed", "New description", "DONE", "renamed@example.com");
+
+        ItemService.UpdateResult result = itemService.updateById(item.getId(), changes, item.getVersion());
+
+        Item stored = itemRepository.findById(item.getId()).orElseThrow();
+        assertEquals(ItemService.WriteResult.DONE, result.result());
+        assertEquals("Renamed", stored.getName());
+        assertEquals(item.getVersion() + 1, stored.getVersion());
+        assertEquals(stored.getVersion(), result.item().getVersion());
+        assertEquals(stored.getLastModified(), result.item().getLastModified());
+    }
+
+    @Test
+    void updateById_WithoutVersion_ReturnsStoredVersion() {
+        Item item = createItems(itemRepository, 1).get(0);
+        itemService.updateById(item.getId(), new Item(null, "First", "Description", "NEW", "a@example.com"), null);
+
+        ItemService.UpdateResult result = itemService.updateById(item.getId(), new Item(null, "Second", "Description", "NEW", "a@example.com"), null);
+
+        Item stored = itemRepository.findById(item.getId()).orElseThrow();
+        assertEquals(item.getVersion() + 2, stored.getVersion());
+        assertEquals(stored.getVersion(), result.item().getVersion());
+        assertEquals(item.getId(), result.item().getId());
+    }
+
+    @Test
+    void updateById_StaleVersionOrMissingItem_ReportsWhy() {
+        Item item = createItems(itemRepository, 1).get(0);
+        Item changes = new Item(null, "Renamed", "New description", "DONE", "renamed@example.com");
+
+        assertEquals(ItemService.WriteResult.VERSION_MISMATCH, itemService.updateById(item.getId(), changes, item.getVersion() + 5).result());
+        assertEquals(ItemService.WriteResult.NOT_FOUND, itemService.updateById(-1L, changes, null).result());
+        assertEquals("Item 0", itemRepository.findById(item.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void deleteById_WithVersion_OnlyDeletesCurrentVersion() {
+        Item item = createItems(itemRepository, 1).get(0);
+
+        assertEquals(ItemService.WriteResult.VERSION_MISMATCH, itemService.deleteById(item.getId(), item.getVersion() + 1));
+        assertEquals(ItemService.WriteResult.DONE, itemService.deleteById(item.getId(), item.getVersion()));
+        assertEquals(ItemService.WriteResult.NOT_FOUND, itemService.deleteById(item.getId(), null));
+        assertFalse(itemRepository.existsById(item.getId()));
+    }
+
+    private List<Long> searchIds(String query, int page, int size) {
+        return itemService.search(query, page, size).hits().stream().map(hit -> hit.item().id()).toList();
+    }
+
+    @Test
+    void search_AllWordsRequired_NameMatchesRankFirst() {
+        Item inDescription = itemRepository.save(new Item(null, "Stool", "A red Quokka-chair", "NEW", "a@example.com"));
+        Item inName = itemRepository.save(new Item(null, "Red quokka chair", "Seat", "NEW", "b@example.com"));
+        itemRepository.save(new Item(null, "Quokka", "Only one of the words", "NEW", "c@example.com"));
+
+        ItemSearchResult result = itemService.search("QUOKKA chair", 0, 10);
+
+        assertEquals(2, result.total());
+        assertEquals(List.of(inName.getId(), inDescription.getId()), result.hits().stream().map(hit -> hit.item().id()).toList());
+        assertTrue(result.hits().get(0).score() > result.hits().get(1).score());
+        assertTrue(searchIds("quokka unknownword", 0, 10).isEmpty());
+    }
+
+    @Test
+    void search_Paging_ReturnsRequestedSlice() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(itemRepository.save(new Item(null, "Wombat " + i, "Same words", "NEW", "w" + i + "@example.com")).getId());
+        }
+
+        ItemSearchResult second = itemService.search("wombat", 1, 2);
+
+        assertEquals(5, second.total());
+        assertEquals(ids.subList(2, 4), second.hits().stream().map(hit -> hit.item().id()).toList());
+    }
+
+    @Test
+    void search_SingleStatementUpdateAndDelete_KeepIndexCurrent() {
+        Item item = itemRepository.save(new Item(null, "Platypus", "Lamp", "NEW", "p@example.com"));
+
+        itemService.updateById(item.getId(), new Item(null, "Echidna", "Lamp", "NEW", "p@example.com"), null);
+        assertTrue(searchIds("platypus", 0, 10).isEmpty());
+        assertEquals(List.of(item.getId()), searchIds("echidna lamp", 0, 10));
+
+        itemService.deleteById(item.getId(), null);
+        assertEquals(0, itemService.search("echidna", 0, 10).total());
+    }
+
+    @Test
+    void search_EntityUpdateAndDelete_KeepIndexCurrent() {
+        Item item = itemRepository.save(new Item(null, "Numbat", "Desk", "NEW", "n@example.com"));
+
+        item.setName("Bilby");
+        itemService.save(item);
+        assertTrue(searchIds("numbat", 0, 10).isEmpty());
+        assertEquals(List.of(item.getId()), searchIds("bilby", 0, 10));
+
+        itemRepository.deleteById(item.getId());
+        assertEquals(0, itemService.search("bilby", 0, 10).total());
+    }
+
+    @Test
+    void aggregates_ServiceWrites_FollowedWithoutRecount() throws Exception {
+        createItems(itemRepository, 4);
+        statusAggregates.reconcile();
+
+        Item created = itemService.save(new Item(null, "Created", "Desc", "NEW", "c@example.com"));
+        itemService.createAll(List.of(new Item(null, "Batch", "Desc", "ON_HOLD", "b@example.com")));
+        itemService.processItemsAsync().get();
+        itemService.transitionStatus("PROCESSED", "ARCHIVED", 2);
+        itemService.deleteById(created.getId(), null);
+
+        ItemAggregates aggregates = itemService.getAggregates().orElseThrow();
+        assertEquals(Map.of("ARCHIVED", 5L), aggregates.statuses());
+        assertEquals(5, aggregates.total());
+        assertEquals(5, aggregates.backlog());
+        assertFalse(aggregates.stale());
+        statusAggregates.reconcile();
+        assertEquals(aggregates.statuses(), itemService.getAggregates().orElseThrow().statuses());
+    }
+
+    @Test
+    void aggregates_SingleStatementUpdateAndDelete_FollowedWithoutRecount() {
+        List<Item> items = createItems(itemRepository, 3);
+        statusAggregates.reconcile();
+        assertEquals(3, itemService.getAggregates().orElseThrow().backlog());
+
+        itemService.updateById(items.get(0).getId(), new Item(null, "Item 0", "Description 0", "PROCESSED", "item0@example.com"), null);
+        itemService.deleteById(items.get(1).getId(), items.get(1).getVersion());
+        itemService.deleteById(items.get(2).getId(), items.get(2).getVersion() + 1);
+
+        ItemAggregates aggregates = itemService.getAggregates().orElseThrow();
+        assertFalse(aggregates.stale());
+        assertEquals(Map.of("NEW", 1L, "PROCESSED", 1L), aggregates.statuses());
+        assertEquals(1, aggregates.backlog());
+        statusAggregates.reconcile();
+        assertEquals(aggregates.statuses(), itemService.getAggregates().orElseThrow().statuses());
+    }
+
+    @Test
+    void findByFilter_StatusNotAndEmail_UsesPaging() {
+        List<Item> items = createItems(itemRepository, 6);
+        items.get(0).setStatus("PROCESSED");
+        items.get(1).setEmail("shared@example.com");
+        items.get(2).setEmail("shared@example.com");
+        items.get(3).setEmail("shared@example.com");
+        itemRepository.saveAll(items);
+
+        ItemQueryResult notProcessed = itemService.findByFilter(new ItemFilter(null, "PROCESSED", null), 0, 4);
+        ItemQueryResult shared = itemService.findByFilter(new ItemFilter("NEW", null, "shared@example.com"), 1, 2);
+
+        assertEquals(5, notProcessed.totalElements());
+        assertEquals(4, notProcessed.items().size());
+        assertEquals(2, notProcessed.totalPages());
+        assertEquals(3, shared.totalElements());
+        assertEquals(List.of(items.get(3).getId()), shared.items().stream().map(Item::getId).toList());
+        assertEquals(1, itemService.countByFilter(new ItemFilter("PROCESSED", null, null)));
+    }
+}
@@ -0,0 +1,55 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+
+// the scheduled check is pushed out of the way, so only the recounts started by the tests run
+@SpringBootTest(properties = "items.aggregates.stale-check-interval=1h")
+public class ItemStatusAggregatesTest {
+
+    @Autowired
+    private ItemStatusAggregates statusAggregates;
+
+    @Autowired
+    private ItemService itemService;
+
+    @SpyBean
+    private ItemRepository itemRepository;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void reconcile_ChangeCommittedDuringQuery_IsKeptAndNotStale() {
+        List<Item> items = itemRepository.saveAll(List.of(
+                new Item(null, "Item 0", "Description 0", "NEW", "item0@example.com"),
+                new Item(null, "Item 1", "Description 1", "NEW", "item1@example.com")));
+        statusAggregates.reconcile();
+        // another request commits an update right after the GROUP BY read the table, so the result still has
+        // both items as NEW
+        doAnswer(invocation -> {
+            Thread writer = new Thread(() -> itemService.updateById(items.get(0).getId(),
+                    new Item(null, "Item 0", "Description 0", "PROCESSED", "item0@example.com"), null));
+            writer.start();
+            writer.join();
+            return List.of(new StatusCount("NEW", 2));
+        }).when(itemRepository).countGroupedByStatus();
+
+        statusAggregates.reconcile();
+
+        ItemAggregates aggregates = statusAggregates.getAggregates();
+        assertFalse(aggregates.stale());
+        assertEquals(Map.of("NEW", 1L, "PROCESSED", 1L), aggregates.statuses());
+    }
+}
@@ -0,0 +1,232 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.zip.GZIPInputStream;
+
+import static com.siemens.internship.TestItems.createItems;
+import static org.junit.jupiter.api.Assertions.*;
+
+// small batches, so a few rows are enough to commit several checkpoints
+@SpringBootTest(properties = {
+        "items.transfer.batch-size=2",
+        "items.transfer.buffer-size=16B"
+})
+public class ItemTransferServiceTest {
+
+    // both statuses in every export, so the round trips cover more than one value
+    private static final IntFunction<String> NEW_OR_PROCESSED = i -> i % 2 == 0 ? "NEW" : "PROCESSED";
+
+    @Autowired
+    private ItemTransferService transferService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemImportCheckpointRepository checkpointRepository;
+
+    @TempDir
+    private Path directory;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository.deleteAll();
+        checkpointRepository.deleteAll();
+    }
+
+    private List<String> contents() {
+        return itemRepository.findAll().stream()
+                .sorted(Comparator.comparing(Item::getId))
+                .map(item -> item.getName() + "|" + item.getDescription() + "|" + item.getStatus() + "|" + item.getEmail())
+                .toList();
+    }
+
+    // hands out the first "limit" bytes of the input, then fails like a dropped connection
+    private static ReadableByteChannel failingAfter(byte[] input, int limit) {
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(input, 0, limit));
+        return new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer buffer) throws IOException {
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    throw new IOException("Connection reset");
+                }
+                return read;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Test
+    void exportToFile_GzipNdjson_ImportsBackTheSameItems() throws Exception {
+        createItems(itemRepository, 5, NEW_OR_PROCESSED);
+        List<String> before = contents();
+        Path file = directory.resolve("items.ndjson.gz");
+
+        assertEquals(5, transferService.exportToFile(file));
+        itemRepository.deleteAll();
+        ItemImportResult result = transferService.importFile(file, "restore");
+
+        assertEquals(5, result.imported());
+        assertEquals(0, result.failed());
+        assertEquals(before, contents());
+        assertTrue(checkpointRepository.findById("restore").orElseThrow().isCompleted());
+        assertFalse(Files.exists(directory.resolve("items.ndjson.gz.part")));
+    }
+
+    @Test
+    void export_CsvWithQuotesAndLineBreaks_RoundTrips() throws Exception {
+        itemRepository.save(new Item(null, "Chair, \"large\"", "First line\nsecond line", "NEW", "a@example.com"));
+        itemRepository.save(new Item(null, "Plain", "Ünïcödé", "NEW", "b@example.com"));
+        List<String> before = contents();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        transferService.export(Channels.newChannel(out), ItemTransferFormat.CSV, false);
+        String csv = out.toString(StandardCharsets.UTF_8);
+        itemRepository.deleteAll();
+        transferService.importFrom(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())), ItemTransferFormat.CSV, false, "csv");
+
+        assertTrue(csv.startsWith("id,name,description,status,email,version,lastModified\n"));
+        assertTrue(csv.contains("\"Chair, \"\"large\"\"\",\"First line\nsecond line\""));
+        assertEquals(before, contents());
+    }
+
+    @Test
+    void export_Gzip_WritesGzipStream() throws Exception {
+        createItems(itemRepository, 2, NEW_OR_PROCESSED);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        transferService.export(Channels.newChannel(out), ItemTransferFormat.NDJSON, true);
+
+        String ndjson = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(2, ndjson.lines().count());
+        assertTrue(ndjson.startsWith("{\"id\":"));
+    }
+
+    @Test
+    void importFrom_InvalidRows_ReportedWithLineNumbersOthersImported() throws Exception {
+        String ndjson = """
+                {"name":"Good 1","description":"d","status":"NEW","email":"g1@example.com"}
+                {"name":"","description":"d","status":"NEW","email":"bad"}
+                not json
+
+                {"name":"Good 2","description":"d","status":"NEW","email":"g2@example.com","unknown":1}
+                """;
+
+        ItemImportResult result = transferService.importFrom(Channels.newChannel(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8))), ItemTransferFormat.NDJSON, false, "mixed");
+
+        assertEquals(2, result.imported());
+        assertEquals(2, result.failed());
+        assertEquals(List.of(2L, 3L), result.errors().stream().map(ItemImportResult.RowError::line).toList());
+        assertEquals(Map.of("name", Item.NAME_BLANK, "email", Item.EMAIL_INVALID), result.errors().get(0).errors());
+        assertTrue(result.errors().get(1).errors().containsKey("record"));
+        assertEquals(2, itemRepository.count());
+    }
+
+    @Test
+    void importFile_CsvFailedHalfway_ResumesAfterLastCommittedRow() throws Exception {
+        createItems(itemRepository, 7, NEW_OR_PROCESSED);
+        List<String> before = contents();
+        Path file = directory.resolve("items.csv");
+        transferService.exportToFile(file);
+        itemRepository.deleteAll();
+        byte[] bytes = Files.readAllBytes(file);
+
+        assertThrows(IOException.class, () -> transferService.importFrom(failingAfter(bytes, bytes.length * 2 / 3),
+                ItemTransferFormat.CSV, false, "resumable"));
+        ItemImportCheckpoint checkpoint = checkpointRepository.findById("resumable").orElseThrow();
+        assertFalse(checkpoint.isCompleted());
+        assertEquals(itemRepository.count(), checkpoint.getImported());
+        assertTrue(checkpoint.getImported() > 0 && checkpoint.getImported() < 7);
+
+        ItemImportResult result = transferService.importFile(file, "resumable");
+
+        assertEquals(checkpoint.getLine(), result.resumedAt());
+        assertEquals(7, result.imported());
+        assertEquals(before, contents());
+    }
+
+    @Test
+    void importFile_GzipFailedHalfway_SkipsCommittedRows() throws Exception {
+        createItems(itemRepository, 6, NEW_OR_PROCESSED);
+        List<String> before = contents();
+        Path file = directory.resolve("items.jsonl.gz");
+        transferService.exportToFile(file);
+        itemRepository.deleteAll();
+        byte[] bytes = Files.readAllBytes(file);
+
+        assertThrows(IOException.class, () -> transferService.importFrom(failingAfter(bytes, bytes.length / 2),
+                ItemTransferFormat.NDJSON, true, "gzip"));
+        ItemImportResult result = transferService.importFile(file, "gzip");
+
+        assertEquals(6, result.imported());
+        assertEquals(before, contents());
+    }
+
+    @Test
+    void importFrom_SameNameStartedConcurrently_SecondThrowsAndInsertsNothing() {
+        byte[] ndjson = "{\"name\":\"A\",\"description\":\"d\",\"status\":\"NEW\",\"email\":\"a@example.com\"}\n"
+                .getBytes(StandardCharsets.UTF_8);
+        ReadableByteChannel input = Channels.newChannel(new ByteArrayInputStream(ndjson));
+        // the other import commits its first batch (and with it the checkpoint) while this one reads its input
+        ReadableByteChannel racing = new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer buffer) throws IOException {
+                if (!checkpointRepository.existsById("race")) {
+                    checkpointRepository.save(new ItemImportCheckpoint("race", ItemTransferFormat.NDJSON));
+                }
+                return input.read(buffer);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        assertThrows(IllegalStateException.class, () -> transferService.importFrom(racing, ItemTransferFormat.NDJSON, false, "race"));
+        assertEquals(0, itemRepository.count());
+    }
+
+    @Test
+    void importFile_AlreadyCompleted_Throws() throws Exception {
+        createItems(itemRepository, 1, NEW_OR_PROCESSED);
+        Path file = directory.resolve("items.ndjson");
+        transferService.exportToFile(file);
+        transferService.importFile(file, "once");
+
+        assertThrows(IllegalStateException.class, () -> transferService.importFile(file, "once"));
+        assertEquals(2, itemRepository.count());
+    }
+}
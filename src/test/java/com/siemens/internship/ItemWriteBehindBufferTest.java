@@ -0,0 +1,122 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+
+import static com.siemens.internship.TestItems.createItems;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+
+// the interval is long enough that only the explicit triggers flush during a test
+@SpringBootTest(properties = {
+        "items.write-behind.enabled=true",
+        "items.write-behind.max-size=4",
+        "items.write-behind.batch-size=2",
+        "items.write-behind.flush-interval=1h",
+        "items.write-behind.shutdown-timeout=200ms",
+        "items.processing.chunk-size=3"
+})
+public class ItemWriteBehindBufferTest {
+
+    @Autowired
+    private ItemWriteBehindBuffer writeBehind;
+
+    @Autowired
+    private ItemService itemService;
+
+    @SpyBean
+    private ItemRepository itemRepository;
+
+    @BeforeEach
+    void setUp() {
+        writeBehind.flush();
+        itemRepository.deleteAll();
+    }
+
+    private String statusOf(Item item) {
+        return itemRepository.findById(item.getId()).orElseThrow().getStatus();
+    }
+
+    @Test
+    void processItemsAsync_WriteBehind_StatusesWrittenWhenRunCompletes() throws Exception {
+        createItems(itemRepository, 10);
+
+        List<Item> processed = itemService.processItemsAsync().get();
+
+        assertEquals(10, processed.size());
+        assertEquals(0, writeBehind.getDepth());
+        assertTrue(itemRepository.findAll().stream().allMatch(item -> "PROCESSED".equals(item.getStatus())));
+    }
+
+    @Test
+    void add_SameItemTwice_CoalescesToLatestStatus() {
+        Item item = createItems(itemRepository, 1).get(0);
+
+        item.setStatus("FIRST");
+        writeBehind.add(List.of(item));
+        item.setStatus("SECOND");
+        writeBehind.add(List.of(item));
+
+        assertEquals(1, writeBehind.getDepth());
+        assertEquals("NEW", statusOf(item));
+        writeBehind.flush();
+        assertEquals(0, writeBehind.getDepth());
+        assertEquals("SECOND", statusOf(item));
+    }
+
+    @Test
+    void flush_ItemChangedByClientMeanwhile_ClientWins() {
+        Item item = createItems(itemRepository, 1).get(0);
+        item.setStatus("PROCESSED");
+        writeBehind.add(List.of(item));
+
+        itemService.updateById(item.getId(), new Item(null, "Renamed", "Description", "IN_REVIEW", "item@example.com"), null);
+        writeBehind.flush();
+
+        assertEquals("IN_REVIEW", statusOf(item));
+        assertEquals(0, writeBehind.getDepth());
+    }
+
+    @Test
+    void add_MaxSizeReached_FlushesRightAway() {
+        List<Item> items = createItems(itemRepository, 4);
+        items.forEach(item -> item.setStatus("PROCESSED"));
+
+        writeBehind.add(items.subList(0, 3));
+        assertEquals(3, writeBehind.getDepth());
+        writeBehind.add(items.subList(3, 4));
+
+        assertEquals(0, writeBehind.getDepth());
+        assertTrue(items.stream().allMatch(item -> "PROCESSED".equals(statusOf(item))));
+    }
+
+    @Test
+    void stop_ItemThatCannotBeWritten_OthersWrittenAndItDropped() {
+        List<Item> items = createItems(itemRepository, 3);
+        items.forEach(item -> item.setStatus("PROCESSED"));
+        Long unwritable = items.get(1).getId();
+        doThrow(new DataAccessResourceFailureException("Row cannot be written"))
+                .when(itemRepository).updateStatusIfVersion(argThat(ids -> ids.contains(unwritable)), anyString(), anyLong());
+        writeBehind.add(items);
+
+        try {
+            writeBehind.stop();
+        } finally {
+            writeBehind.start();
+        }
+
+        assertEquals(0, writeBehind.getDepth());
+        assertEquals("PROCESSED", statusOf(items.get(0)));
+        assertEquals("NEW", statusOf(items.get(1)));
+        assertEquals("PROCESSED", statusOf(items.get(2)));
+    }
+}
@@ -0,0 +1,51 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+public class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Test
+    void prometheus_ExposesEndpointRepositoryAndProcessingMetrics() throws Exception {
+        itemRepository.save(new Item(null, "Item", "Description", "NEW", "item@example.com"));
+        itemService.processItemsAsync().get();
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items")).andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/search").param("q", "item")).andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds")))
+                .andExpect(content().string(containsString("items_processing_run_seconds_count{outcome=\"completed\"")))
+                .andExpect(content().string(containsString("items_processing_chunk_seconds")))
+                .andExpect(content().string(containsString("items_processing_item_seconds")))
+                .andExpect(content().string(containsString("items_processed_total")))
+                .andExpect(content().string(containsString("executor_queued_tasks{name=\"item-processing\"")))
+                .andExpect(content().string(containsString("items_cache_hits_total")))
+                .andExpect(content().string(containsString("items_search_query_seconds_count")))
+                .andExpect(content().string(containsString("items_search_index_memory_bytes")))
+                .andExpect(content().string(containsString("items_backlog")))
+                .andExpect(content().string(containsString("items_aggregates_reconcile_seconds_count")));
+    }
+}
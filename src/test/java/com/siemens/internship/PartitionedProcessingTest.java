@@ -0,0 +1,100 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.siemens.internship.TestItems.createItems;
+import static org.junit.jupiter.api.Assertions.*;
+
+// two application contexts play two instances sharing one file-based H2 database
+public class PartitionedProcessingTest {
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        String url = "jdbc:h2:file:./target/partitioned-test/" + UUID.randomUUID();
+        nodeA = startNode("node-a", url);
+        nodeB = startNode("node-b", url);
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId, String url) {
+        return new SpringApplicationBuilder(InternshipApplication.class)
+                .web(WebApplicationType.NONE)
+                // passed as arguments, so they take precedence over application.properties
+                .run("--spring.datasource.url=" + url,
+                        "--items.processing.chunk-size=3",
+                        "--items.processing.partitioning.enabled=true",
+                        "--items.processing.partitioning.node-id=" + nodeId,
+                        "--items.processing.partitioning.range-size=10",
+                        "--items.processing.partitioning.poll-interval=50ms");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        nodeA.getBean(ItemRepository.class).deleteAll();
+        nodeA.getBean(ItemRangeLeaseRepository.class).deleteAll();
+        nodeA.getBean(ProcessingSweepRepository.class).deleteAll();
+    }
+
+    @Test
+    void processItemsAsync_TwoNodes_ProcessEveryItemExactlyOnce() throws Exception {
+        createItems(nodeA.getBean(ItemRepository.class), 60);
+
+        CompletableFuture<List<Item>> runA = nodeA.getBean(ItemService.class).processItemsAsync();
+        CompletableFuture<List<Item>> runB = nodeB.getBean(ItemService.class).processItemsAsync();
+        List<Item> processedByA = runA.get(10, TimeUnit.SECONDS);
+        List<Item> processedByB = runB.get(10, TimeUnit.SECONDS);
+
+        Set<Long> ids = new HashSet<>();
+        processedByA.forEach(item -> ids.add(item.getId()));
+        processedByB.forEach(item -> ids.add(item.getId()));
+        assertEquals(60, processedByA.size() + processedByB.size());
+        assertEquals(60, ids.size());
+        assertTrue(nodeB.getBean(ItemRepository.class).findAll().stream().allMatch(item -> "PROCESSED".equals(item.getStatus())));
+        assertTrue(nodeB.getBean(ItemRangeLeaseRepository.class).findAll().stream().allMatch(ItemRangeLease::isDone));
+        assertNotNull(nodeA.getBean(ProcessingSweepRepository.class).findById(ItemProcessor.NAME).orElseThrow().getCompletedAt());
+    }
+
+    @Test
+    void processItemsAsync_NodeDiedHoldingRange_RangeIsTakenOver() throws Exception {
+        createItems(nodeA.getBean(ItemRepository.class), 30);
+
+        // a node that claimed the first range and then disappeared without ever renewing it
+        ProcessingSweep sweep = nodeA.getBean(ItemPartitionCoordinator.class).joinOrPlanSweep();
+        ItemRangeLeaseRepository leases = nodeA.getBean(ItemRangeLeaseRepository.class);
+        ItemRangeLease abandoned = leases.findClaimable(sweep.getSweepId(), Instant.now(), PageRequest.ofSize(1)).get(0);
+        Instant now = Instant.now();
+        int claimed = nodeA.getBean(TransactionTemplate.class).execute(status ->
+                leases.claim(abandoned.getId(), "dead-node", now.plusMillis(300), now));
+        assertEquals(1, claimed);
+
+        List<Item> processed = nodeB.getBean(ItemService.class).processItemsAsync().get(10, TimeUnit.SECONDS);
+
+        assertEquals(30, processed.size());
+        assertTrue(processed.stream().anyMatch(item -> item.getId() >= abandoned.getFromId() && item.getId() <= abandoned.getToId()));
+        assertTrue(leases.findById(abandoned.getId()).orElseThrow().isDone());
+    }
+}
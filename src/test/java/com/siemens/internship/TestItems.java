@@ -0,0 +1,24 @@
+package com.siemens.internship;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+// items saved by the tests before they run, numbered from 0: "Item 0", "Description 0", "item0@example.com", ...
+final class TestItems {
+
+    private TestItems() {
+    }
+
+    static List<Item> createItems(ItemRepository itemRepository, int count) {
+        return createItems(itemRepository, count, i -> "NEW");
+    }
+
+    static List<Item> createItems(ItemRepository itemRepository, int count, IntFunction<String> status) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(new Item(null, "Item " + i, "Description " + i, status.apply(i), "item" + i + "@example.com"));
+        }
+        return itemRepository.saveAll(items);
+    }
+}